@@ -1,7 +1,9 @@
 package com.shub.projects.notifications.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -10,8 +12,11 @@ import java.util.concurrent.Executor;
 /**
  * Async Configuration for asynchronous notification processing
  * 
- * Enables non-blocking notification sending for better performance
+ * Enables non-blocking notification sending for better performance.
+ * Set notification.async.virtual-threads=true on Java 21+ to run each task
+ * on its own virtual thread instead of the bounded platform pool.
  */
+@Slf4j
 @Configuration
 @EnableAsync
 public class AsyncConfiguration {
@@ -24,6 +29,15 @@ public class AsyncConfiguration {
 
     @Bean(name = "notificationExecutor")
     public Executor notificationExecutor() {
+        if (properties.getAsync().isVirtualThreads()) {
+            if (VirtualThreads.isSupported()) {
+                log.info("notificationExecutor uses virtual threads");
+                return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("notification-async-"));
+            }
+            log.warn("notification.async.virtual-threads is enabled but the JVM has no virtual threads; "
+                    + "using the platform thread pool");
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(properties.getAsync().getCorePoolSize());
         executor.setMaxPoolSize(properties.getAsync().getMaxPoolSize());
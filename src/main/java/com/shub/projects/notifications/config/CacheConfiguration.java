@@ -15,7 +15,7 @@ import java.util.concurrent.TimeUnit;
  * 
  * Provides high-performance in-memory caching for:
  * - Notification templates
- * - Recent notification history
+ * - Recent notifications (idempotency keys, own TTL and size)
  * - Provider configurations
  * - WhatsApp message status
  */
@@ -39,9 +39,18 @@ public class CacheConfiguration {
                 "configurations");
 
         cacheManager.setCaffeine(caffeineCacheBuilder());
+        cacheManager.registerCustomCache("notifications", idempotencyCacheBuilder().build());
         return cacheManager;
     }
 
+    private Caffeine<Object, Object> idempotencyCacheBuilder() {
+        NotificationProperties.IdempotencyConfig idempotency = properties.getIdempotency();
+        return Caffeine.newBuilder()
+                .maximumSize(idempotency.getMaximumSize())
+                .expireAfterWrite(idempotency.getTtl())
+                .recordStats();
+    }
+
     private Caffeine<Object, Object> caffeineCacheBuilder() {
         return Caffeine.newBuilder()
                 .maximumSize(10000)
@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Email Provider Configuration
  * 
@@ -78,4 +80,58 @@ public class EmailConfig {
      * Default from email address
      */
     private String fromEmail;
+
+    /**
+     * Number of bulk emails sent together over one SMTP session
+     */
+    private int batchSize = 50;
+
+    /**
+     * SMTP connection pool settings
+     */
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Maximum number of open SMTP connections; 0 matches the EMAIL dispatch concurrency
+         */
+        private int maxSize = 0;
+
+        /**
+         * Messages sent over one connection before it is closed and replaced
+         */
+        private int maxMessagesPerConnection = 100;
+
+        /**
+         * Close connections that have been idle longer than this
+         */
+        private Duration idleTimeout = Duration.ofMinutes(2);
+
+        /**
+         * Validate a connection with NOOP before reuse if it has been idle longer than this
+         */
+        private Duration validateAfterIdle = Duration.ofSeconds(10);
+
+        /**
+         * How long a send waits for a free connection
+         */
+        private Duration borrowTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Interval of the background idle eviction sweep
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        /**
+         * Socket connect timeout
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Socket read and write timeout
+         */
+        private Duration readTimeout = Duration.ofSeconds(30);
+    }
 }
@@ -0,0 +1,57 @@
+package com.shub.projects.notifications.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Micrometer binders for the async executor and the Caffeine caches
+ *
+ * notificationExecutor is published as the executor.* meters (active, queued,
+ * queue.remaining, pool.size, completed) tagged name=notificationExecutor; the
+ * virtual-thread executor has no pool to measure and is skipped. Every cache of
+ * the Caffeine cache manager is published as the cache.* meters (gets by
+ * hit/miss, puts, evictions, size) tagged by cache name. Tags match the ones
+ * Spring Boot uses, so an auto-bound meter is reused rather than duplicated.
+ */
+@Slf4j
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder notificationExecutorMetrics(@Qualifier("notificationExecutor") Executor executor) {
+        return registry -> {
+            if (executor instanceof ThreadPoolTaskExecutor) {
+                new ExecutorServiceMetrics(((ThreadPoolTaskExecutor) executor).getThreadPoolExecutor(),
+                        "notificationExecutor", Tags.empty()).bindTo(registry);
+            } else {
+                log.debug("notificationExecutor has no thread pool; executor metrics not published");
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder notificationCacheMetrics(ObjectProvider<CacheManager> cacheManager) {
+        return registry -> cacheManager.ifAvailable(manager -> {
+            for (String name : manager.getCacheNames()) {
+                org.springframework.cache.Cache cache = manager.getCache(name);
+                if (cache instanceof CaffeineCache) {
+                    Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+                    CaffeineCacheMetrics.monitor(registry, nativeCache, name, "cacheManager", "cacheManager");
+                }
+            }
+        });
+    }
+}
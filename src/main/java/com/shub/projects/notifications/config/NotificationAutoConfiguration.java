@@ -20,7 +20,8 @@ import org.springframework.context.annotation.Import;
 @Import({
         CacheConfiguration.class,
         AsyncConfiguration.class,
-        ConditionalDatabaseConfiguration.class
+        ConditionalDatabaseConfiguration.class,
+        RabbitMQConfiguration.class
 })
 public class NotificationAutoConfiguration {
 
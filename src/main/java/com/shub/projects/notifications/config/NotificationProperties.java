@@ -3,6 +3,12 @@ package com.shub.projects.notifications.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Configuration properties for Notification Center
  */
@@ -13,6 +19,10 @@ public class NotificationProperties {
     private DatabaseConfig database = new DatabaseConfig();
     private CacheConfig cache = new CacheConfig();
     private AsyncConfig async = new AsyncConfig();
+    private DispatchConfig dispatch = new DispatchConfig();
+    private IdempotencyConfig idempotency = new IdempotencyConfig();
+    private RetryConfig retry = new RetryConfig();
+    private SchedulerConfig scheduler = new SchedulerConfig();
     private RabbitMQConfig rabbitmq = new RabbitMQConfig();
     // private SocketConfig socket = new SocketConfig(); // Handled by
     // com.shub.projects.notifications.config.SocketConfig
@@ -26,6 +36,19 @@ public class NotificationProperties {
     @Data
     public static class DatabaseConfig {
         private boolean enabled = false;
+        private HistoryConfig history = new HistoryConfig();
+
+        /**
+         * Asynchronous notification_log writer
+         */
+        @Data
+        public static class HistoryConfig {
+            private boolean enabled = true;
+            private int queueCapacity = 20000; // records buffered before the writer applies backpressure
+            private int batchSize = 500; // rows per JDBC batch insert
+            private Duration flushInterval = Duration.ofSeconds(1);
+            private Duration enqueueTimeout = Duration.ZERO; // max wait on a full buffer before dropping
+        }
     }
 
     @Data
@@ -45,6 +68,111 @@ public class NotificationProperties {
         private int corePoolSize = 5;
         private int maxPoolSize = 15;
         private int queueCapacity = 30;
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class DispatchConfig {
+        private int awaitTerminationSeconds = 30;
+        private int reactiveConcurrency = 256;
+        private int streamWindow = 64;
+        private ChannelConfig defaults = new ChannelConfig();
+        private Map<String, ChannelConfig> channels = new HashMap<>();
+        private PriorityConfig priority = new PriorityConfig();
+
+        /**
+         * Resolve the settings for a provider type, falling back to the defaults
+         */
+        public ChannelConfig forChannel(String type) {
+            return channels.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(type))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(defaults);
+        }
+    }
+
+    @Data
+    public static class ChannelConfig {
+        private int concurrency = 5;
+        private int queueCapacity = 100;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL;
+    }
+
+    public enum RejectionPolicy {
+        FAIL, CALLER_RUNS, DISCARD_OLDEST
+    }
+
+    /**
+     * Ordering of queued dispatch tasks by request priority
+     */
+    @Data
+    public static class PriorityConfig {
+        private boolean enabled = true;
+        private double urgentReserve = 0.1; // share of each queue only URGENT may use
+        private double highReserve = 0.1; // further share usable by HIGH and URGENT
+        private Duration agingInterval = Duration.ofSeconds(5); // waiting this long raises a task one level
+    }
+
+    /**
+     * Duplicate suppression on the send path, backed by the "notifications" cache
+     */
+    @Data
+    public static class IdempotencyConfig {
+        private boolean enabled = true;
+        private boolean deriveKeys = false; // also hash type, recipient and content when no key is given
+        private Duration ttl = Duration.ofMinutes(10);
+        private long maximumSize = 100000;
+    }
+
+    /**
+     * Delayed retries of transient provider failures on the async send paths
+     */
+    @Data
+    public static class RetryConfig {
+        private boolean enabled = false;
+        private Duration tickDuration = Duration.ofMillis(100); // timer wheel resolution
+        private int ticksPerWheel = 512;
+        private RetryPolicy defaults = new RetryPolicy();
+        private Map<String, RetryPolicy> channels = new HashMap<>();
+
+        /**
+         * Resolve the policy for a provider type, falling back to the defaults
+         */
+        public RetryPolicy forChannel(String type) {
+            return channels.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(type))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(defaults);
+        }
+    }
+
+    @Data
+    public static class RetryPolicy {
+        private int maxAttempts = 3; // including the first send
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofMinutes(1);
+        private double multiplier = 2.0;
+        private double jitter = 0.5; // fraction of each delay that is randomised
+        private double budgetRatio = 0.1; // retries earned per first attempt
+        private double minRetriesPerSecond = 1; // allowance when traffic is low
+        private int budgetBurst = 100; // most retries that can be saved up
+        private List<String> retryableErrorCodes = new ArrayList<>(); // extra codes, e.g. GATEWAY_xxx
+    }
+
+    /**
+     * Deferred delivery of requests with sendAt or delaySeconds
+     */
+    @Data
+    public static class SchedulerConfig {
+        private boolean enabled = true;
+        private Duration tickDuration = Duration.ofMillis(100);
+        private int wheelSize = 64; // slots per level, power of two
+        private int levels = 5; // 64^5 ticks of 100ms span about 3.4 years
+        private int releaseRate = 500; // due notifications released per second
+        private int maxDispatchQueueDepth = 50; // hold releases while the channel queue is this deep
+        private long maxPending = 5000000;
     }
 
     @Data
@@ -54,6 +182,22 @@ public class NotificationProperties {
         private int port = 5672;
         private String username = "guest";
         private String password = "guest";
+        private String virtualHost = "/";
+        private IngestionConfig ingestion = new IngestionConfig();
+
+        /**
+         * Consumption of NotificationRequest messages from per-channel queues
+         */
+        @Data
+        public static class IngestionConfig {
+            private boolean enabled = false;
+            private String queuePrefix = "notification.requests."; // + channel, e.g. notification.requests.sms
+            private String replyExchange = "notification.results";
+            private int prefetch = 100;
+            private int batchSize = 50; // messages dispatched and acked together
+            private int concurrency = 2;
+            private int maxConcurrency = 4;
+        }
     }
 
     @Data
@@ -76,10 +220,39 @@ public class NotificationProperties {
     public static class WhatsAppConfig {
         private boolean enabled = false;
         private String apiVersion = "v18.0";
+        private String graphApiUrl = "https://graph.facebook.com";
         private String phoneNumberId;
+        private List<String> additionalPhoneNumberIds = new ArrayList<>(); // allowed in metadata.phoneNumberId
         private String accessToken;
         private String webhookVerifyToken;
+        private String appSecret; // signs webhook payloads (X-Hub-Signature-256)
         private String businessAccountId;
+        private RateLimitConfig rateLimit = new RateLimitConfig();
+        private WebhookConfig webhook = new WebhookConfig();
+
+        /**
+         * Per phone number pacing of outbound /messages calls
+         */
+        @Data
+        public static class RateLimitConfig {
+            private boolean enabled = true;
+            private double messagesPerSecond = 80;
+            private int burst = 80;
+            private double minMessagesPerSecond = 5;
+            private double backoffFactor = 0.5;
+            private double recoveryStep = 1;
+            private Duration maxQueueDelay = Duration.ofSeconds(30);
+            private Duration maxBlockingDelay = Duration.ofSeconds(1); // wait allowed in synchronous send()
+        }
+
+        /**
+         * Buffering of status callbacks between the webhook and the status cache
+         */
+        @Data
+        public static class WebhookConfig {
+            private int queueCapacity = 10000; // payloads awaiting ingestion
+            private int batchSize = 500; // payloads parsed per cache write
+        }
     }
 
     @Data
@@ -0,0 +1,44 @@
+package com.shub.projects.notifications.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ Configuration
+ * 
+ * This configuration is ONLY loaded when notification.rabbitmq.enabled=true.
+ * Builds the broker connection from notification.rabbitmq and shares it
+ * between the AMQP features (socket event bus, ingestion queues).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "notification.rabbitmq", name = "enabled", havingValue = "true")
+public class RabbitMQConfiguration {
+
+    @Bean
+    public ConnectionFactory notificationConnectionFactory(NotificationProperties properties) {
+        NotificationProperties.RabbitMQConfig rabbitmq = properties.getRabbitmq();
+        CachingConnectionFactory connectionFactory = new CachingConnectionFactory(rabbitmq.getHost(), rabbitmq.getPort());
+        connectionFactory.setUsername(rabbitmq.getUsername());
+        connectionFactory.setPassword(rabbitmq.getPassword());
+        connectionFactory.setVirtualHost(rabbitmq.getVirtualHost());
+        log.info("RabbitMQ connection configured for {}:{}", rabbitmq.getHost(), rabbitmq.getPort());
+        return connectionFactory;
+    }
+
+    @Bean
+    public RabbitTemplate notificationRabbitTemplate(ConnectionFactory notificationConnectionFactory) {
+        return new RabbitTemplate(notificationConnectionFactory);
+    }
+
+    @Bean
+    public RabbitAdmin notificationRabbitAdmin(ConnectionFactory notificationConnectionFactory) {
+        return new RabbitAdmin(notificationConnectionFactory);
+    }
+}
@@ -3,6 +3,11 @@ package com.shub.projects.notifications.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * SMS Provider Configuration
@@ -80,4 +85,175 @@ public class SmsConfig {
      * Maximum characters per SMS
      */
     private int maxCharactersPerSms = 160;
+
+    /**
+     * Maximum recipients merged into one gateway call when bulk requests share the
+     * same message and DLT template. Set above 1 only for gateways that accept
+     * comma-separated numbers in {mobiles} / {number} and report a result per
+     * number; 1 disables merging.
+     */
+    private int maxRecipientsPerRequest = 1;
+
+    /**
+     * HTTP connection pool settings for gateway calls
+     */
+    private Http http = new Http();
+
+    /**
+     * Further gateways to route between. The gateway described by the fields
+     * above is the first one; sender ID and DLT settings left unset on an
+     * additional gateway are inherited from it.
+     */
+    private List<Gateway> gateways = new ArrayList<>();
+
+    /**
+     * Gateway selection and circuit breaker settings
+     */
+    private Routing routing = new Routing();
+
+    /**
+     * All configured gateways, the top-level one first
+     */
+    public List<Gateway> resolveGateways() {
+        List<Gateway> resolved = new ArrayList<>();
+        if (!ObjectUtils.isEmpty(url)) {
+            Gateway primary = new Gateway();
+            primary.setName(ObjectUtils.isEmpty(provider) ? "default" : provider);
+            primary.setProvider(provider);
+            primary.setUrl(url);
+            primary.setParams(params);
+            primary.setAuthKey(authKey);
+            primary.setUser(user);
+            primary.setPassword(password);
+            primary.setSenderId(senderId);
+            primary.setDltEntityId(dltEntityId);
+            primary.setDltTemplateId(dltTemplateId);
+            primary.setRoute(route);
+            primary.setChannel(channel);
+            primary.setMaxRecipientsPerRequest(maxRecipientsPerRequest);
+            resolved.add(primary);
+        }
+        for (Gateway gateway : gateways) {
+            if (ObjectUtils.isEmpty(gateway.getName())) {
+                gateway.setName(ObjectUtils.isEmpty(gateway.getProvider())
+                        ? "gateway-" + (resolved.size() + 1)
+                        : gateway.getProvider());
+            }
+            if (gateway.getSenderId() == null) {
+                gateway.setSenderId(senderId);
+            }
+            if (gateway.getDltEntityId() == null) {
+                gateway.setDltEntityId(dltEntityId);
+            }
+            if (gateway.getDltTemplateId() == null) {
+                gateway.setDltTemplateId(dltTemplateId);
+            }
+            resolved.add(gateway);
+        }
+        return resolved;
+    }
+
+    /**
+     * One SMS gateway; fields have the same meaning as the top-level ones
+     */
+    @Data
+    public static class Gateway {
+        private String name;
+        private String provider;
+        private String url;
+        private String params;
+        private String authKey;
+        private String user;
+        private String password;
+        private String senderId;
+        private String dltEntityId;
+        private String dltTemplateId;
+        private String route = "4";
+        private String channel;
+        private int maxRecipientsPerRequest = 1;
+
+        /**
+         * Relative share of traffic when gateways perform equally
+         */
+        private double weight = 1.0;
+    }
+
+    @Data
+    public static class Routing {
+
+        /**
+         * Weight of the newest sample in the latency and error-rate averages
+         */
+        private double ewmaAlpha = 0.2;
+
+        /**
+         * Score penalty per unit of error rate; 10 makes a gateway failing 10% of
+         * calls look twice as slow
+         */
+        private double errorPenalty = 10.0;
+
+        /**
+         * Consecutive failures that open a gateway's circuit
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long an open circuit keeps a gateway out of rotation before a probe
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Gateways tried per message before the failure is returned
+         */
+        private int maxAttempts = 2;
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * Maximum open connections to the gateway
+         */
+        private int maxConnections = 200;
+
+        /**
+         * Maximum requests waiting for a free connection
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        /**
+         * How long a request waits for a free connection
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Close connections idle longer than this
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * Close connections older than this, so DNS changes are picked up
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Interval of the background idle and lifetime eviction sweep
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        /**
+         * TCP connect timeout
+         */
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum wait for the gateway response
+         */
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Publish reactor.netty.connection.provider.* pool gauges to Micrometer
+         */
+        private boolean metricsEnabled = true;
+    }
 }
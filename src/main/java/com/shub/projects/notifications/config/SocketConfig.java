@@ -2,14 +2,21 @@ package com.shub.projects.notifications.config;
 
 import com.corundumstudio.socketio.Configuration;
 import com.corundumstudio.socketio.SocketIOServer;
+import com.corundumstudio.socketio.protocol.JacksonJsonSupport;
+import com.shub.projects.notifications.provider.socket.SignedTokenIdentityResolver;
+import com.shub.projects.notifications.provider.socket.SocketIdentityResolver;
+import com.shub.projects.notifications.provider.socket.SocketPayload;
+import com.shub.projects.notifications.provider.socket.SocketSessionRegistry;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
 import javax.annotation.PreDestroy;
+import java.time.Duration;
 
 /**
  * Socket.IO Configuration
@@ -39,31 +46,85 @@ public class SocketConfig {
      */
     private int port = 3002;
 
+    /**
+     * How connections are tied to users
+     */
+    private Identity identity = new Identity();
+
+    /**
+     * Coalescing of room and broadcast events into batch frames
+     */
+    private Batching batching = new Batching();
+
+    /**
+     * Buffering of user-addressed events while the user has no live session
+     */
+    private OfflineBuffer offline = new OfflineBuffer();
+
+    /**
+     * Cross-node delivery of room, broadcast and user events
+     */
+    private Bus bus = new Bus();
+
     private SocketIOServer server;
 
     /**
      * Create and configure Socket.IO server
      */
     @Bean
-    public SocketIOServer socketIOServer() {
+    public SocketIOServer socketIOServer(SocketSessionRegistry sessionRegistry,
+            SocketIdentityResolver identityResolver) {
         Configuration config = new Configuration();
         config.setHostname(host);
         config.setPort(port);
+        // Pre-encoded SocketPayload arguments are written as-is for every client
+        config.setJsonSupport(new JacksonJsonSupport(SocketPayload.jacksonModule()));
 
         server = new SocketIOServer(config);
         server.start();
 
-        server.addConnectListener(client -> log.info("New socket client connected: sessionId={}, time={}",
-                client.getSessionId(),
-                client.getHandshakeData().getTime()));
+        server.addConnectListener(client -> {
+            String userId = identityResolver.resolveUserId(client.getHandshakeData());
+            if (userId != null && !userId.isEmpty()) {
+                sessionRegistry.register(userId, client.getSessionId());
+            }
+            log.info("New socket client connected: sessionId={}, userId={}, time={}",
+                    client.getSessionId(), userId,
+                    client.getHandshakeData().getTime());
+        });
 
-        server.addDisconnectListener(
-                client -> log.info("Socket client disconnected: sessionId={}", client.getSessionId()));
+        server.addDisconnectListener(client -> {
+            String userId = sessionRegistry.unregister(client.getSessionId());
+            log.info("Socket client disconnected: sessionId={}, userId={}", client.getSessionId(), userId);
+        });
 
         log.info("Socket.IO server started on {}:{}", host, port);
         return server;
     }
 
+    /**
+     * Default identity: a signed token, or the bare query parameter when
+     * explicitly opted into
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SocketIdentityResolver socketIdentityResolver() {
+        if (Identity.QUERY_PARAM.equalsIgnoreCase(identity.getMode())) {
+            log.warn("Socket identity is taken from the unauthenticated '{}' query parameter; "
+                    + "any client can claim any user. Do not use this mode in production.", identity.getParam());
+            return handshake -> handshake.getSingleUrlParam(identity.getParam());
+        }
+        if (!Identity.TOKEN.equalsIgnoreCase(identity.getMode())) {
+            throw new IllegalStateException("Unknown notification.socket.identity.mode: " + identity.getMode());
+        }
+        if (identity.getSecret() == null || identity.getSecret().isEmpty()) {
+            log.warn("notification.socket.identity.secret is not set; all socket connections are anonymous "
+                    + "and user:<id> recipients cannot be reached");
+            return handshake -> null;
+        }
+        return new SignedTokenIdentityResolver(identity.getSecret(), identity.getTokenParam());
+    }
+
     /**
      * Cleanup: Stop Socket.IO server on application shutdown
      */
@@ -74,4 +135,111 @@ public class SocketConfig {
             server.stop();
         }
     }
+
+    @Data
+    public static class Identity {
+
+        static final String TOKEN = "token";
+        static final String QUERY_PARAM = "query-param";
+
+        /**
+         * token (signed user token) or query-param (trusts the client; insecure,
+         * for local testing only)
+         */
+        private String mode = TOKEN;
+
+        /**
+         * HMAC-SHA256 key shared with whatever mints user tokens (token mode)
+         */
+        private String secret;
+
+        /**
+         * Handshake query parameter carrying the token when the client cannot
+         * use the Socket.IO auth payload (token mode)
+         */
+        private String tokenParam = "token";
+
+        /**
+         * Handshake query parameter holding the user ID (query-param mode)
+         */
+        private String param = "userId";
+    }
+
+    @Data
+    public static class Batching {
+
+        /**
+         * Coalesce events per room instead of sending one frame per event
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long a room collects events before its frame is sent
+         */
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        /**
+         * Events per frame; a full window is sent immediately
+         */
+        private int maxBatchSize = 100;
+
+        /**
+         * Event name of batch frames, whose data is [{event, data}, ...]
+         */
+        private String batchEventName = "notification-batch";
+    }
+
+    @Data
+    public static class OfflineBuffer {
+
+        /**
+         * Buffer user:<id> events instead of failing when the user is offline
+         */
+        private boolean enabled = false;
+
+        /**
+         * Events kept per user; the oldest is dropped when full
+         */
+        private int perRecipientCapacity = 100;
+
+        /**
+         * How long a buffered event stays deliverable
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * Events kept across all users; the globally oldest are evicted first
+         */
+        private int maxTotal = 100000;
+    }
+
+    @Data
+    public static class Bus {
+
+        /**
+         * local (single node) or amqp (fan out through notification.rabbitmq)
+         */
+        private String type = "local";
+
+        /**
+         * Fanout exchange shared by all nodes
+         */
+        private String exchange = "notification.socket.events";
+
+        /**
+         * How long events are collected before a bus message is published
+         */
+        private Duration flushInterval = Duration.ofMillis(20);
+
+        /**
+         * Events per bus message
+         */
+        private int maxBatchSize = 200;
+
+        /**
+         * How long a user:<id> event that no local session received waits for
+         * another node to report delivery before this node buffers it
+         */
+        private Duration deliveryTimeout = Duration.ofSeconds(2);
+    }
 }
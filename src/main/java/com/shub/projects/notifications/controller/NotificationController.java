@@ -1,14 +1,20 @@
 package com.shub.projects.notifications.controller;
 
 import com.shub.projects.notifications.core.NotificationService;
+import com.shub.projects.notifications.core.NotificationStreamer;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -24,7 +30,11 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class NotificationController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final NotificationService notificationService;
+    private final NotificationStreamer notificationStreamer;
 
     /**
      * Send a single notification
@@ -33,9 +43,13 @@ public class NotificationController {
      */
     @PostMapping("/send")
     public ResponseEntity<NotificationResponse> sendNotification(
-            @Valid @RequestBody NotificationRequest request) {
+            @Valid @RequestBody NotificationRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received notification request: type={}, recipient={}",
                 request.getType(), request.getRecipient());
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
 
         NotificationResponse response = notificationService.send(request);
         return ResponseEntity.ok(response);
@@ -48,9 +62,13 @@ public class NotificationController {
      */
     @PostMapping("/send/async")
     public CompletableFuture<ResponseEntity<NotificationResponse>> sendNotificationAsync(
-            @Valid @RequestBody NotificationRequest request) {
+            @Valid @RequestBody NotificationRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received async notification request: type={}, recipient={}",
                 request.getType(), request.getRecipient());
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
 
         return notificationService.sendAsync(request)
                 .thenApply(ResponseEntity::ok);
@@ -70,6 +88,23 @@ public class NotificationController {
                 .thenApply(ResponseEntity::ok);
     }
 
+    /**
+     * Stream bulk notifications as newline-delimited JSON
+     * 
+     * POST /api/v1/send/stream
+     */
+    @PostMapping(value = "/send/stream", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> sendStreamNotifications(HttpServletRequest request)
+            throws IOException {
+        log.info("Received streaming notification request");
+
+        InputStream body = request.getInputStream();
+        StreamingResponseBody responses = output -> notificationStreamer.stream(body, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(responses);
+    }
+
     /**
      * Health check endpoint
      */
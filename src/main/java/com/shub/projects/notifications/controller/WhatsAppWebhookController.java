@@ -0,0 +1,120 @@
+package com.shub.projects.notifications.controller;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.provider.whatsapp.WhatsAppStatusIngestor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.bind.annotation.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * WhatsApp Cloud API Webhook Controller
+ *
+ * Handles Meta's subscription handshake and receives message status callbacks.
+ * Callbacks are acknowledged as soon as they are queued; parsing and storage
+ * happen on the {@link WhatsAppStatusIngestor} worker. Callbacks are only
+ * accepted with a valid X-Hub-Signature-256, so notification.whatsapp.app-secret
+ * must be set to receive any.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/webhooks/whatsapp")
+@ConditionalOnProperty(prefix = "notification.whatsapp", name = "enabled", havingValue = "true")
+public class WhatsAppWebhookController {
+
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    private final NotificationProperties.WhatsAppConfig whatsAppConfig;
+    private final WhatsAppStatusIngestor statusIngestor;
+
+    public WhatsAppWebhookController(NotificationProperties properties, WhatsAppStatusIngestor statusIngestor) {
+        this.whatsAppConfig = properties.getWhatsapp();
+        this.statusIngestor = statusIngestor;
+        if (ObjectUtils.isEmpty(whatsAppConfig.getAppSecret())) {
+            log.warn("notification.whatsapp.app-secret is not set; WhatsApp status callbacks will be rejected");
+        }
+    }
+
+    /**
+     * Webhook verification handshake
+     *
+     * GET /api/v1/webhooks/whatsapp
+     */
+    @GetMapping
+    public ResponseEntity<String> verify(
+            @RequestParam(name = "hub.mode", required = false) String mode,
+            @RequestParam(name = "hub.verify_token", required = false) String verifyToken,
+            @RequestParam(name = "hub.challenge", required = false) String challenge) {
+        if ("subscribe".equals(mode) && !ObjectUtils.isEmpty(whatsAppConfig.getWebhookVerifyToken())
+                && whatsAppConfig.getWebhookVerifyToken().equals(verifyToken)) {
+            log.info("WhatsApp webhook verified");
+            return ResponseEntity.ok(challenge);
+        }
+        log.warn("WhatsApp webhook verification failed: mode={}", mode);
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    /**
+     * Receive status callbacks
+     *
+     * POST /api/v1/webhooks/whatsapp
+     */
+    @PostMapping
+    public ResponseEntity<Void> receive(
+            @RequestBody byte[] payload,
+            @RequestHeader(name = "X-Hub-Signature-256", required = false) String signature) {
+        if (ObjectUtils.isEmpty(whatsAppConfig.getAppSecret())) {
+            // Without the secret the sender cannot be verified
+            log.warn("Rejected WhatsApp webhook: app-secret is not configured");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!isSignatureValid(payload, signature)) {
+            log.warn("Rejected WhatsApp webhook with invalid signature");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!statusIngestor.submit(payload)) {
+            // Meta retries non-2xx deliveries, so back-pressure instead of losing statuses
+            log.warn("WhatsApp status queue is full, asking Meta to retry");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean isSignatureValid(byte[] payload, String signature) {
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(whatsAppConfig.getAppSecret().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal(payload);
+
+            String hex = signature.substring(SIGNATURE_PREFIX.length());
+            if (hex.length() != expected.length * 2) {
+                return false;
+            }
+            byte[] actual = new byte[expected.length];
+            for (int i = 0; i < actual.length; i++) {
+                int high = Character.digit(hex.charAt(2 * i), 16);
+                int low = Character.digit(hex.charAt(2 * i + 1), 16);
+                if (high < 0 || low < 0) {
+                    return false;
+                }
+                actual[i] = (byte) ((high << 4) | low);
+            }
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException e) {
+            log.error("Unable to verify WhatsApp webhook signature", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.shub.projects.notifications.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded execution lane for one provider type
+ */
+interface DispatchChannel {
+
+    /**
+     * Run the task on this channel, or reject it according to the channel's policy
+     */
+    void execute(DispatchTask task);
+
+    /**
+     * Maximum number of tasks running at once
+     */
+    int getConcurrency();
+
+    /**
+     * Number of tasks accepted but not yet running
+     */
+    int getQueueDepth();
+
+    /**
+     * Number of tasks currently running
+     */
+    int getActiveCount();
+
+    void shutdown();
+
+    void shutdownNow();
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+}
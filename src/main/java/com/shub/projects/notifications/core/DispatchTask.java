@@ -0,0 +1,81 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Unit of work queued on a dispatch channel, completed exactly once
+ */
+@Slf4j
+final class DispatchTask implements Runnable {
+
+    private final String channel;
+    private final NotificationRequest.Priority priority;
+    private final Timer waitTimer;
+    private final Supplier<CompletableFuture<NotificationResponse>> action;
+    private final long createdAt = System.nanoTime();
+    private final CompletableFuture<NotificationResponse> future = new CompletableFuture<>();
+
+    /**
+     * @param waitTimer Records the time from creation until a worker starts the
+     *                  task; may be null
+     * @param action    Work to start on the worker; the task completes when the
+     *                  returned future does
+     */
+    DispatchTask(String channel, NotificationRequest.Priority priority, Timer waitTimer,
+            Supplier<CompletableFuture<NotificationResponse>> action) {
+        this.channel = channel;
+        this.priority = priority != null ? priority : NotificationRequest.Priority.NORMAL;
+        this.waitTimer = waitTimer;
+        this.action = action;
+    }
+
+    CompletableFuture<NotificationResponse> future() {
+        return future;
+    }
+
+    NotificationRequest.Priority getPriority() {
+        return priority;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public void run() {
+        if (future.isDone()) {
+            return;
+        }
+        if (waitTimer != null) {
+            waitTimer.record(System.nanoTime() - createdAt, TimeUnit.NANOSECONDS);
+        }
+        try {
+            action.get().whenComplete((response, error) -> {
+                if (error != null) {
+                    fail(error);
+                } else {
+                    future.complete(response);
+                }
+            });
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable error) {
+        log.error("Dispatch task failed on channel {}: {}", channel, error.getMessage(), error);
+        future.complete(NotificationResponse.failure(error.getMessage()));
+    }
+
+    void reject(String reason) {
+        log.warn("Rejected {} notification: {}", channel, reason);
+        future.complete(NotificationResponse.failure(reason + " for channel " + channel));
+    }
+}
@@ -0,0 +1,163 @@
+package com.shub.projects.notifications.core;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Duplicate suppression for the send path
+ *
+ * The first request for a key claims it by storing its result future in the
+ * "notifications" cache; duplicates arriving while it is in flight, or within
+ * the TTL after it succeeded, get that same future and therefore the same
+ * response without calling the gateway again. Failed sends release the key so
+ * a retry is attempted for real.
+ *
+ * The key is the request's idempotency key; requests without one are not
+ * deduplicated unless derive-keys is set, in which case they are keyed by a
+ * SHA-256 of type, recipient, subject, message and template parameters.
+ */
+@Slf4j
+@Component
+public class IdempotencyGuard {
+
+    private static final String CACHE_NAME = "notifications";
+
+    private final NotificationProperties.IdempotencyConfig config;
+    private final Cache cache;
+
+    public IdempotencyGuard(NotificationProperties properties, ObjectProvider<CacheManager> cacheManager) {
+        this.config = properties.getIdempotency();
+        CacheManager manager = cacheManager.getIfAvailable();
+        Cache shared = manager != null ? manager.getCache(CACHE_NAME) : null;
+        this.cache = shared != null ? shared : new CaffeineCache(CACHE_NAME, Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .build());
+    }
+
+    /**
+     * Claim the request's key
+     *
+     * @return Claim whose owner must send the request and complete it; for a
+     *         duplicate, {@link Claim#result()} is the original send's result
+     */
+    public Claim claim(NotificationRequest request) {
+        String key = config.isEnabled() ? keyOf(request) : null;
+        CompletableFuture<NotificationResponse> result = new CompletableFuture<>();
+        if (key == null) {
+            return new Claim(null, result, true);
+        }
+
+        Cache.ValueWrapper existing = cache.putIfAbsent(key, result);
+        if (existing != null && existing.get() instanceof CompletableFuture) {
+            log.info("Suppressed duplicate {} notification to {}", request.getType(), request.getRecipient());
+            @SuppressWarnings("unchecked")
+            CompletableFuture<NotificationResponse> original = (CompletableFuture<NotificationResponse>) existing.get();
+            return new Claim(key, original, false);
+        }
+        return new Claim(key, result, true);
+    }
+
+    private String keyOf(NotificationRequest request) {
+        String type = request.getType() != null ? request.getType().toUpperCase() : "";
+        if (request.getIdempotencyKey() != null && !request.getIdempotencyKey().isBlank()) {
+            return "key:" + type + ":" + request.getIdempotencyKey();
+        }
+        if (!config.isDeriveKeys()) {
+            return null;
+        }
+
+        StringBuilder content = new StringBuilder(256)
+                .append(type).append('\u0000')
+                .append(request.getRecipient()).append('\u0000')
+                .append(request.getSubject()).append('\u0000')
+                .append(request.getMessage()).append('\u0000')
+                .append(request.getTemplateId());
+        if (request.getTemplateParameters() != null) {
+            // Sorted so that equal parameter maps hash equally
+            for (Map.Entry<String, String> parameter : new TreeMap<>(request.getTemplateParameters()).entrySet()) {
+                content.append('\u0000').append(parameter.getKey()).append('=').append(parameter.getValue());
+            }
+        }
+        if (request.getMedia() != null) {
+            content.append('\u0000').append(request.getMedia().getUrl());
+        }
+        return "hash:" + sha256(content.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Outcome of claiming a key
+     */
+    public final class Claim {
+
+        private final String key;
+        private final CompletableFuture<NotificationResponse> result;
+        private final boolean owner;
+
+        private Claim(String key, CompletableFuture<NotificationResponse> result, boolean owner) {
+            this.key = key;
+            this.result = result;
+            this.owner = owner;
+        }
+
+        /**
+         * Whether this caller must perform the send
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * Response of the send, shared by the owner and all duplicates
+         */
+        public CompletableFuture<NotificationResponse> result() {
+            return result;
+        }
+
+        /**
+         * Publish the owner's response; failures release the key. Only the
+         * first outcome counts, later calls are ignored.
+         */
+        public void complete(NotificationResponse response) {
+            if (result.isDone()) {
+                return;
+            }
+            if (key != null && (response == null || !response.isSuccess())) {
+                cache.evict(key);
+            }
+            result.complete(response);
+        }
+
+        public void fail(Throwable error) {
+            complete(NotificationResponse.failure(error.getMessage()));
+        }
+    }
+}
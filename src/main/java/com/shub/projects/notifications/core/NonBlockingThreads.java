@@ -0,0 +1,36 @@
+package com.shub.projects.notifications.core;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Timer threads that must never run a provider send inline
+ *
+ * The retry wheel and the scheduler tick each run on a single thread; a send
+ * executed there under CALLER_RUNS would stall every other timeout. Dispatch
+ * channels reject instead of running inline on these threads.
+ */
+final class NonBlockingThreads {
+
+    private static final ThreadLocal<Boolean> MARKED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private NonBlockingThreads() {
+    }
+
+    /**
+     * Daemon thread factory whose threads are marked non-blocking
+     */
+    static ThreadFactory factory(String threadNamePrefix) {
+        CustomizableThreadFactory delegate = new CustomizableThreadFactory(threadNamePrefix);
+        delegate.setDaemon(true);
+        return runnable -> delegate.newThread(() -> {
+            MARKED.set(Boolean.TRUE);
+            runnable.run();
+        });
+    }
+
+    static boolean isCurrent() {
+        return MARKED.get();
+    }
+}
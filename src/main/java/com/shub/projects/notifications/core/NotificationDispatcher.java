@@ -0,0 +1,338 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.config.VirtualThreads;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-channel dispatch engine
+ *
+ * Each provider type gets its own bounded queue and worker pool, so a slow
+ * gateway on one channel cannot starve the others. Queue depth, concurrency
+ * and rejection policy are configured under notification.dispatch.
+ * With notification.async.virtual-threads each task runs on a virtual thread
+ * and the channel concurrency becomes a semaphore cap instead of a pool size.
+ *
+ * Queued tasks are ordered by request priority with capacity reserved for
+ * URGENT and HIGH (see PriorityTaskQueue). The time each task waits for a
+ * worker is recorded as notification.dispatch.queue.wait, tagged by channel
+ * and priority; notification.dispatch.queue.depth and
+ * notification.dispatch.active gauge each channel's backlog and busy workers.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private final NotificationProperties.DispatchConfig config;
+    private final Map<String, DispatchChannel> channels;
+    private final Map<String, Integer> batchSizes;
+    private final Map<String, Timer[]> waitTimers;
+
+    public NotificationDispatcher(NotificationProperties properties, List<NotificationProvider> providerList,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.config = properties.getDispatch();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+
+        boolean virtualThreads = properties.getAsync().isVirtualThreads();
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            log.warn("notification.async.virtual-threads is enabled but the JVM has no virtual threads; "
+                    + "using platform thread pools");
+            virtualThreads = false;
+        }
+
+        Map<String, DispatchChannel> dispatchChannels = new HashMap<>();
+        Map<String, Integer> providerBatchSizes = new HashMap<>();
+        Map<String, Timer[]> channelWaitTimers = new HashMap<>();
+        for (NotificationProvider provider : providerList) {
+            String channel = provider.getType().toUpperCase();
+            DispatchChannel dispatchChannel = createChannel(channel, config.forChannel(channel), virtualThreads);
+            dispatchChannels.put(channel, dispatchChannel);
+            providerBatchSizes.put(channel, Math.max(1, provider.getMaxBatchSize()));
+            if (registry != null) {
+                channelWaitTimers.put(channel, createWaitTimers(registry, channel));
+                registerGauges(registry, channel, dispatchChannel);
+            }
+        }
+        this.channels = Collections.unmodifiableMap(dispatchChannels);
+        this.batchSizes = Collections.unmodifiableMap(providerBatchSizes);
+        this.waitTimers = Collections.unmodifiableMap(channelWaitTimers);
+        log.info("Initialized NotificationDispatcher with channels: {}", channels.keySet());
+    }
+
+    /**
+     * Queue an action on the worker pool of the request's channel
+     *
+     * @param request Notification request used to select the channel
+     * @param action  Work to run on the channel worker
+     * @return Future completed with the action's response, or with a failure
+     *         response if the channel rejected the task
+     */
+    public CompletableFuture<NotificationResponse> dispatch(NotificationRequest request,
+            Supplier<NotificationResponse> action) {
+        return dispatchAsync(request, () -> CompletableFuture.completedFuture(action.get()));
+    }
+
+    /**
+     * Start an asynchronous action on the worker pool of the request's channel
+     *
+     * The worker is released as soon as the action has returned its future, so
+     * the action must not block.
+     *
+     * @param request Notification request used to select the channel
+     * @param action  Work to start on the channel worker
+     * @return Future completed with the action's response, or with a failure
+     *         response if the channel rejected the task
+     */
+    public CompletableFuture<NotificationResponse> dispatchAsync(NotificationRequest request,
+            Supplier<CompletableFuture<NotificationResponse>> action) {
+        String channel = request.getType() != null ? request.getType().toUpperCase() : null;
+        DispatchChannel dispatchChannel = channel != null ? channels.get(channel) : null;
+        if (dispatchChannel == null) {
+            // Unknown type: fail without running anything on the caller thread
+            return CompletableFuture.completedFuture(
+                    NotificationResponse.failure("No provider configured for type: " + request.getType()));
+        }
+
+        NotificationRequest.Priority priority = request.getPriority() != null
+                ? request.getPriority()
+                : NotificationRequest.Priority.NORMAL;
+        Timer[] timers = waitTimers.get(channel);
+        DispatchTask task = new DispatchTask(channel, priority, timers != null ? timers[priority.ordinal()] : null,
+                action);
+        dispatchChannel.execute(task);
+        return task.future();
+    }
+
+    /**
+     * Fan a batch of requests out across the channel worker pools
+     *
+     * Each channel processes its share of the batch through at most
+     * {@code concurrency} lanes, so a bulk job never holds more than one task
+     * per worker in flight. Each task covers up to the provider's
+     * {@code getMaxBatchSize()} consecutive items of its channel. Responses keep
+     * the input order and a failing item only fails its own slot.
+     *
+     * @param requests Requests to send
+     * @param action   Work to start for each chunk on its channel worker,
+     *                 completing with one response per request; a lane moves on
+     *                 to its next chunk when the future completes
+     * @return Future completed with one response per request, in input order
+     */
+    public CompletableFuture<List<NotificationResponse>> dispatchAll(List<NotificationRequest> requests,
+            Function<List<NotificationRequest>, CompletableFuture<List<NotificationResponse>>> action) {
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        Map<String, List<Integer>> indicesByChannel = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String type = requests.get(i).getType();
+            indicesByChannel.computeIfAbsent(type != null ? type.toUpperCase() : "", key -> new ArrayList<>())
+                    .add(i);
+        }
+
+        BulkJob job = new BulkJob(requests, action);
+        List<Lane> lanes = new ArrayList<>();
+        indicesByChannel.forEach((channel, indices) -> {
+            AtomicInteger cursor = new AtomicInteger();
+            int batchSize = batchSizes.getOrDefault(channel, 1);
+            int chunks = (indices.size() + batchSize - 1) / batchSize;
+            int width = Math.min(chunks, laneWidth(channel));
+            for (int i = 0; i < width; i++) {
+                lanes.add(new Lane(job, indices, cursor, batchSize));
+            }
+        });
+
+        job.remainingLanes.set(lanes.size());
+        lanes.forEach(this::advance);
+        return job.future;
+    }
+
+    /**
+     * Current number of queued tasks for a channel, or 0 if the channel is unknown
+     */
+    public int getQueueDepth(String channel) {
+        DispatchChannel dispatchChannel = channels.get(channel.toUpperCase());
+        return dispatchChannel != null ? dispatchChannel.getQueueDepth() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(DispatchChannel::shutdown);
+        for (Map.Entry<String, DispatchChannel> entry : channels.entrySet()) {
+            try {
+                if (!entry.getValue().awaitTermination(config.getAwaitTerminationSeconds(), TimeUnit.SECONDS)) {
+                    log.warn("Dispatch channel {} did not drain before shutdown", entry.getKey());
+                    entry.getValue().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().shutdownNow();
+            }
+        }
+    }
+
+    private int laneWidth(String channel) {
+        DispatchChannel dispatchChannel = channels.get(channel);
+        return dispatchChannel != null ? dispatchChannel.getConcurrency() : 1;
+    }
+
+    /**
+     * Send the lane's next chunks until one is in flight or the channel share is
+     * exhausted. Loops instead of recursing so that chunks completing inline
+     * (rejections, unknown types) do not grow the stack.
+     */
+    private void advance(Lane lane) {
+        while (true) {
+            int start = lane.cursor.getAndAdd(lane.batchSize);
+            if (start >= lane.indices.size()) {
+                lane.job.laneFinished();
+                return;
+            }
+
+            List<Integer> chunk = lane.indices.subList(start, Math.min(start + lane.batchSize, lane.indices.size()));
+            CompletableFuture<NotificationResponse> result = dispatchAsync(lane.job.requests.get(chunk.get(0)),
+                    () -> lane.job.runChunk(chunk));
+
+            if (!result.isDone()) {
+                result.thenAccept(response -> {
+                    lane.job.fillMissing(chunk, response);
+                    advance(lane);
+                });
+                return;
+            }
+            lane.job.fillMissing(chunk, result.join());
+        }
+    }
+
+    private DispatchChannel createChannel(String channel, NotificationProperties.ChannelConfig channelConfig,
+            boolean virtualThreads) {
+        log.info("Dispatch channel {}: concurrency={}, queueCapacity={}, rejectionPolicy={}, virtualThreads={}",
+                channel, channelConfig.getConcurrency(), channelConfig.getQueueCapacity(),
+                channelConfig.getRejectionPolicy(), virtualThreads);
+        return virtualThreads
+                ? new VirtualDispatchChannel(channel, channelConfig, config.getPriority())
+                : new PooledDispatchChannel(channel, channelConfig, config.getPriority());
+    }
+
+    private static Timer[] createWaitTimers(MeterRegistry registry, String channel) {
+        NotificationRequest.Priority[] priorities = NotificationRequest.Priority.values();
+        Timer[] timers = new Timer[priorities.length];
+        for (NotificationRequest.Priority priority : priorities) {
+            timers[priority.ordinal()] = Timer.builder("notification.dispatch.queue.wait")
+                    .description("Time dispatch tasks wait for a channel worker")
+                    .tag("channel", channel)
+                    .tag("priority", priority.name())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+        }
+        return timers;
+    }
+
+    private static void registerGauges(MeterRegistry registry, String channel, DispatchChannel dispatchChannel) {
+        Gauge.builder("notification.dispatch.queue.depth", dispatchChannel, DispatchChannel::getQueueDepth)
+                .description("Dispatch tasks waiting for a channel worker")
+                .tag("channel", channel)
+                .register(registry);
+        Gauge.builder("notification.dispatch.active", dispatchChannel, DispatchChannel::getActiveCount)
+                .description("Dispatch tasks running on channel workers")
+                .tag("channel", channel)
+                .register(registry);
+    }
+
+    /**
+     * State shared by the lanes of one dispatchAll call
+     */
+    private static final class BulkJob {
+
+        private final List<NotificationRequest> requests;
+        private final Function<List<NotificationRequest>, CompletableFuture<List<NotificationResponse>>> action;
+        private final NotificationResponse[] results;
+        private final AtomicInteger remainingLanes = new AtomicInteger();
+        private final CompletableFuture<List<NotificationResponse>> future = new CompletableFuture<>();
+
+        BulkJob(List<NotificationRequest> requests,
+                Function<List<NotificationRequest>, CompletableFuture<List<NotificationResponse>>> action) {
+            this.requests = requests;
+            this.action = action;
+            this.results = new NotificationResponse[requests.size()];
+        }
+
+        /**
+         * Start the action for a chunk on the channel worker and record its responses
+         */
+        CompletableFuture<NotificationResponse> runChunk(List<Integer> chunk) {
+            List<NotificationRequest> batch = new ArrayList<>(chunk.size());
+            for (int index : chunk) {
+                batch.add(requests.get(index));
+            }
+
+            return action.apply(batch).thenApply(responses -> {
+                NotificationResponse last = null;
+                for (int i = 0; i < chunk.size() && i < responses.size(); i++) {
+                    results[chunk.get(i)] = responses.get(i);
+                    last = responses.get(i);
+                }
+                return last != null ? last : NotificationResponse.failure("Provider returned no response");
+            });
+        }
+
+        /**
+         * Give every slot of the chunk the action did not fill (rejection,
+         * failure, short response list) the task's own response
+         */
+        void fillMissing(List<Integer> chunk, NotificationResponse response) {
+            for (int index : chunk) {
+                if (results[index] == null) {
+                    results[index] = response;
+                }
+            }
+        }
+
+        void laneFinished() {
+            if (remainingLanes.decrementAndGet() == 0) {
+                future.complete(Arrays.asList(results));
+            }
+        }
+    }
+
+    /**
+     * Sequential worker over one channel's share of a bulk job
+     */
+    private static final class Lane {
+
+        private final BulkJob job;
+        private final List<Integer> indices;
+        private final AtomicInteger cursor;
+        private final int batchSize;
+
+        Lane(BulkJob job, List<Integer> indices, AtomicInteger cursor, int batchSize) {
+            this.job = job;
+            this.indices = indices;
+            this.cursor = cursor;
+            this.batchSize = batchSize;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+
+/**
+ * Callback for every notification the service has finished sending
+ *
+ * Called once per notification with its final outcome, after any retries.
+ *
+ * Called on the sending thread, so implementations must only hand the record
+ * off (e.g. to a queue) and never block on I/O.
+ */
+public interface NotificationListener {
+
+    void onNotificationSent(NotificationRequest request, NotificationResponse response);
+}
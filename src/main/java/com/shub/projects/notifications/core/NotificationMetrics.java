@@ -0,0 +1,107 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Provider call metrics
+ *
+ * notification.provider.send is a percentile histogram tagged by type,
+ * operation and outcome. Operation send times each notification from its first
+ * provider call to its final outcome, retries included; operation batch times
+ * each provider batch call, which counts as failed if any of its items failed.
+ * notification.failures counts notifications whose final outcome failed, by
+ * type and reason (the response's error code, or UNKNOWN). Types without a
+ * provider are tagged UNKNOWN so request input cannot create new series. Does
+ * nothing without a MeterRegistry.
+ */
+@Component
+public class NotificationMetrics {
+
+    private static final String SEND = "send";
+    private static final String BATCH = "batch";
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry registry;
+    private final Set<String> types;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+    public NotificationMetrics(ObjectProvider<MeterRegistry> meterRegistry, List<NotificationProvider> providers) {
+        this.registry = meterRegistry.getIfAvailable();
+        this.types = providers.stream()
+                .map(provider -> provider.getType().toUpperCase())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Record the final outcome of a notification first sent at
+     * {@code startNanos} (System.nanoTime)
+     */
+    public void recordSend(String type, long startNanos, NotificationResponse response) {
+        if (registry == null) {
+            return;
+        }
+        String tag = typeTag(type);
+        timer(tag, SEND, response.isSuccess()).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!response.isSuccess()) {
+            countFailure(tag, response);
+        }
+    }
+
+    /**
+     * Time a batch call that started at {@code startNanos} (System.nanoTime);
+     * its items' failures are counted by {@link #recordSend} once final
+     */
+    public void recordBatch(String type, long startNanos, List<NotificationResponse> responses) {
+        if (registry == null) {
+            return;
+        }
+        String tag = typeTag(type);
+        boolean success = responses.stream().allMatch(NotificationResponse::isSuccess);
+        timer(tag, BATCH, success).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String type, String operation, boolean success) {
+        String outcome = success ? "success" : "failure";
+        return timers.computeIfAbsent(type + '|' + operation + '|' + outcome,
+                key -> Timer.builder("notification.provider.send")
+                        .description("Provider call latency")
+                        .tag("type", type)
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(60))
+                        .register(registry));
+    }
+
+    private void countFailure(String type, NotificationResponse response) {
+        String reason = response.getErrorCode() != null ? response.getErrorCode() : UNKNOWN;
+        failures.computeIfAbsent(type + '|' + reason,
+                key -> Counter.builder("notification.failures")
+                        .description("Failed notifications by reason")
+                        .tag("type", type)
+                        .tag("reason", reason)
+                        .register(registry))
+                .increment();
+    }
+
+    private String typeTag(String type) {
+        String upper = type != null ? type.toUpperCase() : UNKNOWN;
+        return types.contains(upper) ? upper : UNKNOWN;
+    }
+}
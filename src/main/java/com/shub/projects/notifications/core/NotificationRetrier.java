@@ -0,0 +1,197 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient provider failures after a delay
+ *
+ * A failure is retried when its error code shows it was transient and the
+ * message was not delivered: connect failures, throttling, unavailable
+ * gateways, HTTP 5xx, SMTP 4xx, and any code listed in the channel's
+ * {@code retryable-error-codes}. Timeouts and mid-request I/O errors are not
+ * retried by default, since gateway POSTs are not idempotent and the message
+ * may already be out; list TIMEOUT or IO_ERROR for channels whose provider
+ * deduplicates sends.
+ * Retries wait on a hashed timer wheel, so no thread sleeps or is held while a
+ * backoff elapses; the wheel thread only hands the next attempt back to the
+ * caller's dispatch path. Delays grow exponentially with jitter, and each
+ * provider type has its own {@link RetryBudget} so an outage cannot multiply
+ * traffic into a retry storm.
+ */
+@Slf4j
+@Component
+public class NotificationRetrier {
+
+    private final NotificationProperties.RetryConfig config;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer;
+
+    public NotificationRetrier(NotificationProperties properties) {
+        this.config = properties.getRetry();
+        if (config.isEnabled()) {
+            this.timer = new HashedWheelTimer(NonBlockingThreads.factory("notification-retry-"), config.getTickDuration().toMillis(),
+                    TimeUnit.MILLISECONDS, config.getTicksPerWheel());
+            log.info("Notification retries enabled: defaults={}", config.getDefaults());
+        } else {
+            this.timer = null;
+        }
+    }
+
+    /**
+     * Retry a failed first attempt until it succeeds, fails for good, or runs out
+     * of attempts or budget
+     *
+     * @param request Request that was sent
+     * @param first   Response of the first attempt
+     * @param attempt Starts one more attempt; invoked on the timer thread, so it
+     *                must hand the work off rather than send inline
+     * @return Future completed with the final response
+     */
+    public CompletableFuture<NotificationResponse> retryIfNeeded(NotificationRequest request,
+            NotificationResponse first, Supplier<CompletableFuture<NotificationResponse>> attempt) {
+        if (timer == null) {
+            return CompletableFuture.completedFuture(first);
+        }
+
+        String channel = request.getType() != null ? request.getType().toUpperCase() : "";
+        NotificationProperties.RetryPolicy policy = config.forChannel(channel);
+        RetryBudget budget = budgets.computeIfAbsent(channel, key -> new RetryBudget(policy));
+        budget.deposit();
+
+        RetryTask task = new RetryTask(request, policy, budget, attempt);
+        task.handle(first);
+        return task.result;
+    }
+
+    /**
+     * Whether a failure is worth another attempt under a policy
+     */
+    public boolean isRetryable(NotificationResponse response, NotificationProperties.RetryPolicy policy) {
+        if (response == null || response.isSuccess() || response.getErrorCode() == null) {
+            return false;
+        }
+        String code = response.getErrorCode();
+        if (policy.getRetryableErrorCodes().contains(code)) {
+            return true;
+        }
+        switch (code) {
+            case ProviderErrors.CONNECT_FAILED:
+            case ProviderErrors.RATE_LIMITED:
+            case ProviderErrors.UNAVAILABLE:
+                return true;
+            default:
+                return code.startsWith(ProviderErrors.HTTP_PREFIX + "5")
+                        || code.startsWith(ProviderErrors.SMTP_PREFIX + "4");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timer == null) {
+            return;
+        }
+        // Pending retries resolve with the failure they were waiting to retry
+        Set<Timeout> pending = timer.stop();
+        for (Timeout timeout : pending) {
+            if (timeout.task() instanceof RetryTask) {
+                ((RetryTask) timeout.task()).abandon();
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.info("Abandoned {} scheduled notification retries on shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Delay before the retry following {@code attempts} failed attempts
+     */
+    private static long backoffMillis(NotificationProperties.RetryPolicy policy, int attempts) {
+        double delay = policy.getInitialBackoff().toMillis() * Math.pow(policy.getMultiplier(), attempts - 1);
+        delay = Math.min(delay, policy.getMaxBackoff().toMillis());
+        double jitter = Math.min(1, Math.max(0, policy.getJitter()));
+        return (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Retry state of one request, rescheduled on the wheel after each failure
+     */
+    private final class RetryTask implements TimerTask {
+
+        private final NotificationRequest request;
+        private final NotificationProperties.RetryPolicy policy;
+        private final RetryBudget budget;
+        private final Supplier<CompletableFuture<NotificationResponse>> attempt;
+        private final CompletableFuture<NotificationResponse> result = new CompletableFuture<>();
+        private volatile NotificationResponse last;
+        // Incremented on the timer thread, read on whichever thread completes the attempt
+        private volatile int attempts = 1;
+
+        private RetryTask(NotificationRequest request, NotificationProperties.RetryPolicy policy,
+                RetryBudget budget, Supplier<CompletableFuture<NotificationResponse>> attempt) {
+            this.request = request;
+            this.policy = policy;
+            this.budget = budget;
+            this.attempt = attempt;
+        }
+
+        private void handle(NotificationResponse response) {
+            last = response;
+            if (attempts >= policy.getMaxAttempts() || !isRetryable(response, policy)) {
+                result.complete(response);
+                return;
+            }
+            if (!budget.tryWithdraw()) {
+                log.warn("Retry budget for {} exhausted, not retrying notification to {} ({})",
+                        request.getType(), request.getRecipient(), response.getErrorCode());
+                result.complete(response);
+                return;
+            }
+
+            long delay = backoffMillis(policy, attempts);
+            log.info("Retrying {} notification to {} in {} ms after {} (attempt {} of {})",
+                    request.getType(), request.getRecipient(), delay, response.getErrorCode(),
+                    attempts + 1, policy.getMaxAttempts());
+            try {
+                timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // Timer stopped during shutdown
+                result.complete(response);
+            }
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            attempts++;
+            CompletableFuture<NotificationResponse> next;
+            try {
+                next = attempt.get();
+            } catch (RuntimeException e) {
+                next = CompletableFuture.completedFuture(NotificationResponse.failure(e.getMessage()));
+            }
+            next.whenComplete((response, error) -> handle(error != null
+                    ? NotificationResponse.failure(ProviderErrors.codeOf(error), error.getMessage())
+                    : response));
+        }
+
+        private void abandon() {
+            result.complete(last);
+        }
+    }
+}
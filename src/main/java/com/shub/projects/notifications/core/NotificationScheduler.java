@@ -0,0 +1,270 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Holds requests with a future sendAt or a delay until they are due
+ *
+ * Entries live in a {@link TimingWheel} owned by a single tick thread; callers
+ * only append to a lock-free inbox. Due entries are released into the async
+ * send path at no more than {@code release-rate} per second, spread over every
+ * tick, and are held back while their channel's dispatch queue is at least
+ * {@code max-dispatch-queue-depth} deep, so a burst of reminders due at the same
+ * minute drains at a steady pace instead of overflowing the dispatcher. Due
+ * entries wait in one queue per channel; channels share each tick's quota in
+ * turn, and a backed-up channel is skipped without touching its entries.
+ *
+ * With a {@link ScheduledNotificationStore} bean (notification.database.enabled)
+ * every entry is saved before it is confirmed, deleted once its send has
+ * completed, and reloaded when the scheduler is created, before it accepts new
+ * requests. Entries are then
+ * released at least once; run a single scheduling node per database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.scheduler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationScheduler {
+
+    private final NotificationProperties.SchedulerConfig config;
+    private final NotificationDispatcher dispatcher;
+    private final ScheduledNotificationStore store;
+    private final long tickMillis;
+    private final int releasePerTick;
+    private final TimingWheel wheel;
+    private final ConcurrentLinkedQueue<TimingWheel.Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final Map<String, ArrayDeque<TimingWheel.Entry>> due = new HashMap<>();
+    private final ConcurrentLinkedQueue<String> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final ScheduledExecutorService ticker;
+    private volatile Function<NotificationRequest, CompletableFuture<NotificationResponse>> releaseHandler;
+
+    public NotificationScheduler(NotificationProperties properties, NotificationDispatcher dispatcher,
+            ObjectProvider<ScheduledNotificationStore> store) {
+        this.config = properties.getScheduler();
+        this.dispatcher = dispatcher;
+        this.store = store.getIfAvailable();
+        this.tickMillis = Math.max(1, config.getTickDuration().toMillis());
+        this.releasePerTick = (int) Math.max(1, Math.ceil(config.getReleaseRate() * tickMillis / 1000.0));
+        this.wheel = new TimingWheel(config.getWheelSize(), config.getLevels(), System.currentTimeMillis() / tickMillis);
+        loadPersisted();
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(NonBlockingThreads.factory("notification-scheduler-"));
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("Notification scheduler started: tick={}ms, releasePerTick={}, persistent={}",
+                tickMillis, releasePerTick, this.store != null);
+    }
+
+    /**
+     * Set where due requests are sent; called once by the notification service
+     */
+    public void setReleaseHandler(Function<NotificationRequest, CompletableFuture<NotificationResponse>> handler) {
+        this.releaseHandler = handler;
+    }
+
+    /**
+     * Schedule the request if it asks for later delivery
+     *
+     * @return SCHEDULED response carrying the schedule ID, a failure if it could
+     *         not be scheduled, or null if the request is due now
+     */
+    public NotificationResponse scheduleIfDeferred(NotificationRequest request) {
+        long now = System.currentTimeMillis();
+        long dueMillis;
+        if (request.getSendAt() != null) {
+            dueMillis = request.getSendAt().toEpochMilli();
+        } else if (request.getDelaySeconds() != null && request.getDelaySeconds() > 0) {
+            dueMillis = now + TimeUnit.SECONDS.toMillis(request.getDelaySeconds());
+        } else {
+            return null;
+        }
+        if (dueMillis <= now) {
+            return null;
+        }
+
+        // Reserve the slot first so concurrent callers cannot overshoot max-pending
+        if (pending.incrementAndGet() > config.getMaxPending()) {
+            pending.decrementAndGet();
+            return NotificationResponse.failure("Too many scheduled notifications pending");
+        }
+        UUID id = UUID.randomUUID();
+        if (store != null) {
+            try {
+                store.save(id.toString(), Instant.ofEpochMilli(dueMillis), request);
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                log.error("Failed to persist scheduled notification: {}", e.getMessage(), e);
+                return NotificationResponse.failure("Failed to schedule notification: " + e.getMessage());
+            }
+        }
+        enqueue(id, dueMillis, request);
+        log.debug("Scheduled {} notification to {} for {}", request.getType(), request.getRecipient(),
+                Instant.ofEpochMilli(dueMillis));
+        return NotificationResponse.scheduled(id.toString());
+    }
+
+    /**
+     * Notifications scheduled and not yet released
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Reload persisted entries; overdue ones are released at the normal pace
+     *
+     * Runs before the scheduler is visible to producers, so nothing scheduled
+     * in this run can be loaded a second time. The store's schema is in place by
+     * then: Spring Boot initializes the database before beans that use it.
+     */
+    private void loadPersisted() {
+        if (store == null) {
+            return;
+        }
+        long before = pending.get();
+        try {
+            store.loadAll((id, dueAt, request) -> {
+                pending.incrementAndGet();
+                enqueue(UUID.fromString(id), dueAt.toEpochMilli(), request);
+            });
+            log.info("Reloaded {} scheduled notifications", pending.get() - before);
+        } catch (RuntimeException e) {
+            log.error("Failed to reload scheduled notifications", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Sends still in flight stay in the store and are released again on restart
+        deleteCompleted();
+        if (store == null && pending.get() > 0) {
+            log.warn("Discarding {} scheduled notifications that are not persisted", pending.get());
+        }
+    }
+
+    private void enqueue(UUID id, long dueMillis, NotificationRequest request) {
+        long deadlineTick = (dueMillis + tickMillis - 1) / tickMillis;
+        inbox.add(new TimingWheel.Entry(deadlineTick, id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                request));
+    }
+
+    private void tick() {
+        try {
+            TimingWheel.Entry entry;
+            while ((entry = inbox.poll()) != null) {
+                if (!wheel.add(entry)) {
+                    addDue(entry);
+                }
+            }
+            wheel.advanceTo(System.currentTimeMillis() / tickMillis, this::addDue);
+            release();
+            deleteCompleted();
+        } catch (RuntimeException e) {
+            log.error("Notification scheduler tick failed", e);
+        }
+    }
+
+    private void addDue(TimingWheel.Entry entry) {
+        String channel = entry.request.getType() != null ? entry.request.getType() : "";
+        due.computeIfAbsent(channel, key -> new ArrayDeque<>()).add(entry);
+    }
+
+    /**
+     * Hand up to one tick's quota of due entries to the send path, one channel
+     * at a time in turn, skipping channels whose dispatch queue is backed up
+     */
+    private void release() {
+        Function<NotificationRequest, CompletableFuture<NotificationResponse>> handler = releaseHandler;
+        if (handler == null || due.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, ArrayDeque<TimingWheel.Entry>>> channels = new ArrayList<>(due.entrySet());
+        int quota = releasePerTick;
+        while (quota > 0 && !channels.isEmpty()) {
+            Iterator<Map.Entry<String, ArrayDeque<TimingWheel.Entry>>> it = channels.iterator();
+            while (quota > 0 && it.hasNext()) {
+                Map.Entry<String, ArrayDeque<TimingWheel.Entry>> channel = it.next();
+                if (dispatcher.getQueueDepth(channel.getKey()) >= config.getMaxDispatchQueueDepth()) {
+                    it.remove();
+                    continue;
+                }
+                releaseEntry(handler, channel.getValue().poll());
+                quota--;
+                if (channel.getValue().isEmpty()) {
+                    due.remove(channel.getKey());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void releaseEntry(Function<NotificationRequest, CompletableFuture<NotificationResponse>> handler,
+            TimingWheel.Entry entry) {
+        pending.decrementAndGet();
+        String id = new UUID(entry.idHigh, entry.idLow).toString();
+        CompletableFuture<NotificationResponse> result;
+        try {
+            result = handler.apply(entry.request);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            if (error != null || response == null || !response.isSuccess()) {
+                log.warn("Scheduled {} notification to {} failed: {}", entry.request.getType(),
+                        entry.request.getRecipient(),
+                        error != null ? error.getMessage() : response != null ? response.getErrorMessage() : null);
+            }
+            if (store != null) {
+                completed.add(id);
+            }
+        });
+    }
+
+    /**
+     * Delete entries whose send has finished, successfully or not, in one batch
+     */
+    private void deleteCompleted() {
+        if (completed.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>();
+        String id;
+        while ((id = completed.poll()) != null) {
+            ids.add(id);
+        }
+        try {
+            store.delete(ids);
+        } catch (RuntimeException e) {
+            log.error("Failed to delete {} sent scheduled notifications", ids.size(), e);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.shub.projects.notifications.core;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -16,6 +19,9 @@ public interface NotificationService {
     /**
      * Send a notification synchronously
      * 
+     * Retries transient failures like sendAsync; the caller blocks until
+     * the final outcome is known.
+     * 
      * @param request Notification request
      * @return Notification response
      */
@@ -36,4 +42,20 @@ public interface NotificationService {
      * @return CompletableFuture with list of responses
      */
     CompletableFuture<java.util.List<NotificationResponse>> sendBulk(java.util.List<NotificationRequest> requests);
+
+    /**
+     * Send a notification without blocking the calling thread
+     * 
+     * @param request Notification request
+     * @return Mono emitting the notification response
+     */
+    Mono<NotificationResponse> sendReactive(NotificationRequest request);
+
+    /**
+     * Send bulk notifications without blocking the calling thread
+     * 
+     * @param requests Multiple notification requests
+     * @return Flux of responses in the same order as the requests
+     */
+    Flux<NotificationResponse> sendBulkReactive(java.util.List<NotificationRequest> requests);
 }
@@ -1,16 +1,25 @@
 package com.shub.projects.notifications.core;
 
+import com.shub.projects.notifications.config.NotificationProperties;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 import com.shub.projects.notifications.exception.NotificationException;
 import com.shub.projects.notifications.provider.NotificationProvider;
+import com.shub.projects.notifications.provider.ProviderErrors;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -23,8 +32,28 @@ import java.util.stream.Collectors;
 public class NotificationServiceImpl implements NotificationService {
 
     private final Map<String, NotificationProvider> providers;
+    private final NotificationDispatcher dispatcher;
+    private final List<NotificationListener> listeners;
+    private final IdempotencyGuard idempotencyGuard;
+    private final NotificationRetrier retrier;
+    private final NotificationScheduler scheduler;
+    private final NotificationMetrics metrics;
+    private final int reactiveConcurrency;
 
-    public NotificationServiceImpl(List<NotificationProvider> providerList) {
+    public NotificationServiceImpl(List<NotificationProvider> providerList, NotificationDispatcher dispatcher,
+            NotificationProperties properties, ObjectProvider<NotificationListener> listeners,
+            IdempotencyGuard idempotencyGuard, NotificationRetrier retrier,
+            ObjectProvider<NotificationScheduler> scheduler, NotificationMetrics metrics) {
+        this.dispatcher = dispatcher;
+        this.metrics = metrics;
+        this.idempotencyGuard = idempotencyGuard;
+        this.retrier = retrier;
+        this.scheduler = scheduler.getIfAvailable();
+        if (this.scheduler != null) {
+            this.scheduler.setReleaseHandler(this::deliver);
+        }
+        this.listeners = listeners.orderedStream().collect(Collectors.toList());
+        this.reactiveConcurrency = properties.getDispatch().getReactiveConcurrency();
         this.providers = providerList.stream()
                 .collect(Collectors.toMap(
                         NotificationProvider::getType,
@@ -34,39 +63,268 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public NotificationResponse send(NotificationRequest request) {
+        IdempotencyGuard.Claim claim = idempotencyGuard.claim(request);
+        if (!claim.isOwner()) {
+            return claim.result().join();
+        }
+
+        NotificationResponse response;
+        try {
+            response = defer(request);
+            if (response == null) {
+                // Same path as sendAsync, retries included; backoff waits on the retry timer, not this thread
+                response = deliver(request).join();
+            }
+        } catch (RuntimeException e) {
+            claim.fail(e);
+            throw e;
+        }
+        claim.complete(response);
+        return response;
+    }
+
+    /**
+     * One provider call; metrics and listeners are left to {@link #finish}
+     */
+    private NotificationResponse attempt(NotificationRequest request) {
         try {
             log.debug("Sending {} notification to {}", request.getType(), request.getRecipient());
 
             NotificationProvider provider = getProvider(request.getType());
             NotificationResponse response = provider.send(request);
-
-            if (response.isSuccess()) {
-                log.info("Notification sent successfully. MessageId: {}", response.getMessageId());
-            } else {
-                log.error("Failed to send notification. Provider Error: {}", response.getErrorMessage());
-            }
-
+            logOutcome(response);
             return response;
 
         } catch (Exception e) {
             log.error("Failed to send notification: {}", e.getMessage(), e);
-            return NotificationResponse.failure(e.getMessage());
+            return NotificationResponse.failure(ProviderErrors.codeOf(e), e.getMessage());
         }
     }
 
+    /**
+     * Record the final outcome of a notification, after any retries, exactly once
+     */
+    private NotificationResponse finish(NotificationRequest request, long startNanos, NotificationResponse response) {
+        metrics.recordSend(request.getType(), startNanos, response);
+        notifyListeners(request, response);
+        return response;
+    }
+
     @Override
-    @Async("notificationExecutor")
     public CompletableFuture<NotificationResponse> sendAsync(NotificationRequest request) {
-        return CompletableFuture.completedFuture(send(request));
+        IdempotencyGuard.Claim claim = idempotencyGuard.claim(request);
+        if (!claim.isOwner()) {
+            return claim.result();
+        }
+
+        try {
+            NotificationResponse scheduled = defer(request);
+            if (scheduled != null) {
+                claim.complete(scheduled);
+            } else {
+                deliver(request).whenComplete((response, error) -> {
+                    if (error != null) {
+                        claim.fail(error);
+                    } else {
+                        claim.complete(response);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            claim.fail(e);
+        }
+        return claim.result();
+    }
+
+    /**
+     * Dispatch and retry without claiming; also where the scheduler releases due requests
+     */
+    private CompletableFuture<NotificationResponse> deliver(NotificationRequest request) {
+        long start = System.nanoTime();
+        return dispatchNow(request)
+                .thenCompose(response -> retrier.retryIfNeeded(request, response, () -> dispatchNow(request)))
+                .thenApply(response -> finish(request, start, response));
+    }
+
+    /**
+     * Schedule a request that asks for later delivery
+     *
+     * @return Response to return in place of sending, or null to send now
+     */
+    private NotificationResponse defer(NotificationRequest request) {
+        if (scheduler != null) {
+            return scheduler.scheduleIfDeferred(request);
+        }
+        boolean deferred = (request.getSendAt() != null && request.getSendAt().isAfter(Instant.now()))
+                || (request.getDelaySeconds() != null && request.getDelaySeconds() > 0);
+        return deferred ? NotificationResponse.failure("Scheduled delivery is disabled") : null;
     }
 
     @Override
-    @Async("notificationExecutor")
     public CompletableFuture<List<NotificationResponse>> sendBulk(List<NotificationRequest> requests) {
-        List<NotificationResponse> responses = requests.stream()
-                .map(this::send)
-                .collect(Collectors.toList());
-        return CompletableFuture.completedFuture(responses);
+        List<CompletableFuture<NotificationResponse>> results = new ArrayList<>(requests.size());
+        List<IdempotencyGuard.Claim> owned = new ArrayList<>(requests.size());
+        List<NotificationRequest> toSend = new ArrayList<>(requests.size());
+        long start = System.nanoTime();
+        CompletableFuture<List<NotificationResponse>> dispatched;
+        try {
+            for (NotificationRequest request : requests) {
+                IdempotencyGuard.Claim claim = idempotencyGuard.claim(request);
+                results.add(claim.result());
+                if (!claim.isOwner()) {
+                    continue;
+                }
+                // Owned until proven scheduled, so a failure below releases it
+                owned.add(claim);
+                NotificationResponse scheduled = defer(request);
+                if (scheduled != null) {
+                    owned.remove(owned.size() - 1);
+                    claim.complete(scheduled);
+                } else {
+                    toSend.add(request);
+                }
+            }
+            dispatched = dispatcher.dispatchAll(toSend, this::sendBatch);
+        } catch (RuntimeException e) {
+            owned.forEach(claim -> claim.fail(e));
+            throw e;
+        }
+
+        dispatched.whenComplete((responses, error) -> {
+            for (int i = 0; i < owned.size(); i++) {
+                IdempotencyGuard.Claim claim = owned.get(i);
+                NotificationRequest request = toSend.get(i);
+                if (error != null || i >= responses.size()) {
+                    String message = error != null ? error.getMessage() : "No response from provider";
+                    claim.complete(finish(request, start, NotificationResponse.failure(message)));
+                    continue;
+                }
+                retrier.retryIfNeeded(request, responses.get(i), () -> dispatchNow(request))
+                        .whenComplete((response, retryError) -> claim.complete(finish(request, start,
+                                retryError != null ? NotificationResponse.failure(retryError.getMessage()) : response)));
+            }
+        });
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> results.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Send when subscribed; the idempotency key is claimed here, once, so
+     * subscribe to the returned Mono. Subscribing again replays the outcome of
+     * the first subscription instead of sending again.
+     */
+    @Override
+    public Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+        IdempotencyGuard.Claim claim = idempotencyGuard.claim(request);
+        if (!claim.isOwner()) {
+            return Mono.fromFuture(claim.result());
+        }
+
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return Mono.defer(() -> {
+            if (!subscribed.compareAndSet(false, true)) {
+                return Mono.fromFuture(claim.result());
+            }
+            NotificationResponse scheduled = defer(request);
+            if (scheduled != null) {
+                claim.complete(scheduled);
+                return Mono.just(scheduled);
+            }
+            long start = System.nanoTime();
+            return sendReactiveNow(request)
+                    .flatMap(response -> Mono.fromFuture(retrier.retryIfNeeded(request, response,
+                            () -> sendReactiveNow(request).toFuture())))
+                    .map(response -> finish(request, start, response))
+                    .doOnNext(claim::complete)
+                    .doOnCancel(() -> claim.fail(new NotificationException("Send cancelled")));
+        })
+                .doOnError(claim::fail);
+    }
+
+    /**
+     * One reactive provider call; metrics and listeners are left to {@link #finish}
+     */
+    private Mono<NotificationResponse> sendReactiveNow(NotificationRequest request) {
+        return Mono.defer(() -> {
+            log.debug("Sending {} notification to {}", request.getType(), request.getRecipient());
+            return getProvider(request.getType()).sendReactive(request);
+        })
+                .doOnNext(this::logOutcome)
+                .onErrorResume(e -> {
+                    log.error("Failed to send notification: {}", e.getMessage(), e);
+                    return Mono.just(NotificationResponse.failure(ProviderErrors.codeOf(e), e.getMessage()));
+                });
+    }
+
+    @Override
+    public Flux<NotificationResponse> sendBulkReactive(List<NotificationRequest> requests) {
+        return Flux.fromIterable(requests)
+                .flatMapSequential(this::sendReactive, reactiveConcurrency);
+    }
+
+    private CompletableFuture<NotificationResponse> dispatchNow(NotificationRequest request) {
+        return dispatcher.dispatch(request, () -> attempt(request));
+    }
+
+    /**
+     * Send a chunk of same-type requests through the provider's batch support
+     *
+     * Only the batch call is timed here; sendBulk reports each notification's
+     * final outcome once any retries are done.
+     */
+    private CompletableFuture<List<NotificationResponse>> sendBatch(List<NotificationRequest> batch) {
+        if (batch.size() == 1) {
+            // Already claimed by sendBulk; send() would wait on its own claim
+            return CompletableFuture.completedFuture(Collections.singletonList(attempt(batch.get(0))));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<NotificationResponse>> sent;
+        try {
+            log.debug("Sending batch of {} {} notifications", batch.size(), batch.get(0).getType());
+
+            NotificationProvider provider = getProvider(batch.get(0).getType());
+            sent = provider.sendBatchAsync(batch);
+        } catch (Exception e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        return sent.handle((responses, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                log.error("Failed to send notification batch: {}", cause.getMessage(), cause);
+                responses = batch.stream()
+                        .map(request -> NotificationResponse.failure(ProviderErrors.codeOf(cause), cause.getMessage()))
+                        .collect(Collectors.toList());
+            } else {
+                responses.forEach(this::logOutcome);
+            }
+            metrics.recordBatch(batch.get(0).getType(), start, responses);
+            return responses;
+        });
+    }
+
+    private void notifyListeners(NotificationRequest request, NotificationResponse response) {
+        for (NotificationListener listener : listeners) {
+            try {
+                listener.onNotificationSent(request, response);
+            } catch (RuntimeException e) {
+                log.warn("Notification listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private void logOutcome(NotificationResponse response) {
+        if (response.isSuccess()) {
+            log.info("Notification sent successfully. MessageId: {}", response.getMessageId());
+        } else {
+            log.error("Failed to send notification. Provider Error: {}", response.getErrorMessage());
+        }
     }
 
     private NotificationProvider getProvider(String type) {
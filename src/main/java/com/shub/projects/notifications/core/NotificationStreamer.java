@@ -0,0 +1,122 @@
+package com.shub.projects.notifications.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Streams newline-delimited JSON notification requests through the dispatcher
+ *
+ * Requests are read one line at a time and at most {@code stream-window} sends
+ * are in flight, so memory stays flat regardless of payload size. Responses are
+ * written one per line in input order, each as soon as it and every earlier
+ * response have completed.
+ */
+@Slf4j
+@Component
+public class NotificationStreamer {
+
+    private static final byte NEWLINE = '\n';
+
+    private final NotificationService notificationService;
+    private final ObjectReader requestReader;
+    private final ObjectWriter responseWriter;
+    private final Validator validator;
+    private final int window;
+
+    public NotificationStreamer(NotificationService notificationService,
+            ObjectMapper objectMapper,
+            ObjectProvider<Validator> validator,
+            NotificationProperties properties) {
+        this.notificationService = notificationService;
+        this.requestReader = objectMapper.readerFor(NotificationRequest.class);
+        this.responseWriter = objectMapper.writerFor(NotificationResponse.class);
+        this.validator = validator.getIfAvailable();
+        this.window = Math.max(1, properties.getDispatch().getStreamWindow());
+    }
+
+    /**
+     * Send every request read from the input and write one response line per request
+     *
+     * @param input  NDJSON request stream
+     * @param output NDJSON response stream
+     * @return Number of requests processed
+     */
+    public long stream(InputStream input, OutputStream output) throws IOException {
+        Deque<CompletableFuture<NotificationResponse>> inFlight = new ArrayDeque<>(window);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long count = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            count++;
+            inFlight.addLast(submit(line));
+
+            if (inFlight.size() >= window) {
+                write(output, inFlight.removeFirst().join());
+            }
+            while (!inFlight.isEmpty() && inFlight.peekFirst().isDone()) {
+                write(output, inFlight.removeFirst().join());
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            write(output, inFlight.removeFirst().join());
+        }
+        log.info("Streamed {} notification requests", count);
+        return count;
+    }
+
+    private CompletableFuture<NotificationResponse> submit(String line) {
+        NotificationRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(
+                    NotificationResponse.failure("Invalid request: " + e.getOriginalMessage()));
+        }
+        if (request == null) {
+            return CompletableFuture.completedFuture(NotificationResponse.failure("Invalid request: expected a JSON object"));
+        }
+
+        if (validator != null) {
+            Set<ConstraintViolation<NotificationRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                return CompletableFuture.completedFuture(NotificationResponse.failure(violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining(", "))));
+            }
+        }
+        return notificationService.sendAsync(request);
+    }
+
+    private void write(OutputStream output, NotificationResponse response) throws IOException {
+        output.write(responseWriter.writeValueAsBytes(response));
+        output.write(NEWLINE);
+        output.flush();
+    }
+}
@@ -0,0 +1,112 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch channel backed by a fixed-size platform thread pool and a bounded
+ * priority queue
+ */
+final class PooledDispatchChannel implements DispatchChannel {
+
+    private final ThreadPoolExecutor executor;
+
+    PooledDispatchChannel(String channel, NotificationProperties.ChannelConfig channelConfig,
+            NotificationProperties.PriorityConfig priorityConfig) {
+        BlockingQueue<Runnable> queue = channelConfig.getQueueCapacity() > 0
+                ? new PriorityTaskQueue(channelConfig.getQueueCapacity(), priorityConfig)
+                : new SynchronousQueue<>();
+
+        this.executor = new ThreadPoolExecutor(
+                channelConfig.getConcurrency(),
+                channelConfig.getConcurrency(),
+                60L, TimeUnit.SECONDS,
+                queue,
+                new CustomizableThreadFactory("notification-" + channel.toLowerCase() + "-"),
+                rejectionHandler(channelConfig.getRejectionPolicy()));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(DispatchTask task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public int getConcurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void shutdownNow() {
+        for (Runnable queued : executor.shutdownNow()) {
+            if (queued instanceof DispatchTask) {
+                ((DispatchTask) queued).reject("Dispatcher is shut down");
+            }
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(NotificationProperties.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        ((DispatchTask) task).reject("Dispatcher is shut down");
+                    } else if (NonBlockingThreads.isCurrent()) {
+                        ((DispatchTask) task).reject("Dispatch queue is full");
+                    } else {
+                        task.run();
+                    }
+                };
+            case DISCARD_OLDEST:
+                return (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        ((DispatchTask) task).reject("Dispatcher is shut down");
+                        return;
+                    }
+                    // Evict the oldest task of the lowest priority, never one more urgent than the newcomer
+                    Runnable oldest = executor.getQueue() instanceof PriorityTaskQueue
+                            ? ((PriorityTaskQueue) executor.getQueue()).evictFor(task)
+                            : executor.getQueue().poll();
+                    if (oldest == null) {
+                        ((DispatchTask) task).reject("Dispatch queue is full");
+                        return;
+                    }
+                    if (oldest instanceof DispatchTask) {
+                        ((DispatchTask) oldest).reject("Evicted from full dispatch queue");
+                    }
+                    executor.execute(task);
+                };
+            case FAIL:
+            default:
+                return (task, executor) -> ((DispatchTask) task).reject(
+                        executor.isShutdown() ? "Dispatcher is shut down" : "Dispatch queue is full");
+        }
+    }
+}
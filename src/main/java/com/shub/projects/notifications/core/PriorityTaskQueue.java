@@ -0,0 +1,308 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, priority-ordered queue of dispatch tasks
+ *
+ * Tasks are kept in one FIFO per {@link NotificationRequest.Priority}, and the
+ * next task taken is the head with the highest effective priority. A task
+ * gains one level for every {@code aging-interval} it has waited (up to HIGH),
+ * so LOW and NORMAL traffic still drains under a steady stream of HIGH sends.
+ *
+ * Part of the capacity is held back for urgent work: LOW and NORMAL tasks are
+ * refused once the queue is within the URGENT and HIGH reserves of full, HIGH
+ * tasks once it is within the URGENT reserve, and URGENT tasks only when it is
+ * completely full. A bulk job can therefore never fill the queue ahead of an
+ * OTP.
+ */
+final class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final int LEVELS = NotificationRequest.Priority.values().length;
+    private static final int URGENT = NotificationRequest.Priority.URGENT.ordinal();
+    private static final int HIGH = NotificationRequest.Priority.HIGH.ordinal();
+    private static final int NORMAL = NotificationRequest.Priority.NORMAL.ordinal();
+
+    private final boolean prioritised;
+    private final long agingNanos;
+    private final int[] limits = new int[LEVELS];
+    private final ArrayDeque<Runnable>[] levels;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int count;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    PriorityTaskQueue(int capacity, NotificationProperties.PriorityConfig config) {
+        this.prioritised = config.isEnabled();
+        this.agingNanos = Math.max(1, config.getAgingInterval().toNanos());
+        this.levels = new ArrayDeque[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new ArrayDeque<>();
+        }
+
+        int urgentReserve = prioritised ? (int) Math.round(capacity * config.getUrgentReserve()) : 0;
+        int highReserve = prioritised ? (int) Math.round(capacity * config.getHighReserve()) : 0;
+        for (int i = 0; i < LEVELS; i++) {
+            int reserved = i == URGENT ? 0 : i == HIGH ? urgentReserve : urgentReserve + highReserve;
+            limits[i] = Math.max(0, capacity - reserved);
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        int level = levelOf(task);
+        lock.lock();
+        try {
+            if (count >= limits[level]) {
+                return false;
+            }
+            levels[level].addLast(task);
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        // Dispatch channels never wait for space; a full queue goes to the rejection policy
+        return offer(task);
+    }
+
+    @Override
+    public void put(Runnable task) {
+        if (!offer(task)) {
+            throw new IllegalStateException("Dispatch queue is full");
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            int level = nextLevel(System.nanoTime());
+            return level < 0 ? null : levels[level].peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest task of the lowest priority, to make room for a task of
+     * the given priority
+     *
+     * @return Evicted task, or null if only higher-priority tasks are queued or
+     *         one eviction would not bring the queue under the task's limit
+     */
+    Runnable evictFor(Runnable incoming) {
+        int incomingLevel = levelOf(incoming);
+        lock.lock();
+        try {
+            if (count - 1 >= limits[incomingLevel]) {
+                return null;
+            }
+            for (int level = 0; level <= incomingLevel; level++) {
+                Runnable evicted = levels[level].pollFirst();
+                if (evicted != null) {
+                    count--;
+                    return evicted;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        lock.lock();
+        try {
+            for (ArrayDeque<Runnable> level : levels) {
+                if (level.remove(task)) {
+                    count--;
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return limits[URGENT] - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (count > 0 && drained < maxElements) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot iterator; removal goes through {@link #remove(Object)}
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(count);
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                snapshot.addAll(levels[level]);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Iterator<Runnable> delegate = snapshot.iterator();
+        return new Iterator<Runnable>() {
+            private Runnable current;
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                current = delegate.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                PriorityTaskQueue.this.remove(current);
+            }
+        };
+    }
+
+    /**
+     * Caller holds the lock and count is positive
+     */
+    private Runnable dequeue() {
+        Runnable task = levels[nextLevel(System.nanoTime())].pollFirst();
+        count--;
+        return task;
+    }
+
+    /**
+     * Level whose head has the highest effective priority; ties go to the task
+     * that has waited longest
+     */
+    private int nextLevel(long now) {
+        int best = -1;
+        long bestEffective = -1;
+        long bestQueuedAt = 0;
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            Runnable head = levels[level].peekFirst();
+            if (head == null) {
+                continue;
+            }
+            long queuedAt = queuedAt(head);
+            long effective = level == URGENT ? URGENT : Math.min(HIGH, level + (now - queuedAt) / agingNanos);
+            if (effective > bestEffective || (effective == bestEffective && queuedAt - bestQueuedAt < 0)) {
+                best = level;
+                bestEffective = effective;
+                bestQueuedAt = queuedAt;
+            }
+        }
+        return best;
+    }
+
+    private int levelOf(Runnable task) {
+        if (!prioritised || !(task instanceof DispatchTask)) {
+            return NORMAL;
+        }
+        return ((DispatchTask) task).getPriority().ordinal();
+    }
+
+    private static long queuedAt(Runnable task) {
+        return task instanceof DispatchTask ? ((DispatchTask) task).getCreatedAt() : 0;
+    }
+}
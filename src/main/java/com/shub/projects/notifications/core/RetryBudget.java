@@ -0,0 +1,73 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Retry allowance of one provider type
+ *
+ * Every first attempt earns {@code budget-ratio} of a retry and every retry
+ * spends one, so retries stay a bounded fraction of real traffic no matter how
+ * long a gateway is down. A small time-based allowance keeps retries possible
+ * when traffic is low. Savings are capped at {@code budget-burst}.
+ */
+final class RetryBudget {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double cap;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double balance;
+    private long lastRefill;
+
+    RetryBudget(NotificationProperties.RetryPolicy policy) {
+        this.ratio = policy.getBudgetRatio();
+        this.minPerSecond = policy.getMinRetriesPerSecond();
+        this.cap = Math.max(1, policy.getBudgetBurst());
+        this.balance = Math.min(cap, Math.max(1, minPerSecond));
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Credit a first attempt
+     */
+    void deposit() {
+        lock.lock();
+        try {
+            refill();
+            balance = Math.min(cap, balance + ratio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Spend one retry
+     *
+     * @return false if the budget is exhausted and the failure should stand
+     */
+    boolean tryWithdraw() {
+        lock.lock();
+        try {
+            refill();
+            if (balance < 1) {
+                return false;
+            }
+            balance -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(cap, balance + (now - lastRefill) / NANOS_PER_SECOND * minPerSecond);
+        lastRefill = now;
+    }
+}
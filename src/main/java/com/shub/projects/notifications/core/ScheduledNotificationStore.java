@@ -0,0 +1,31 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationRequest;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Durable storage for scheduled notifications
+ *
+ * Implement as a bean to survive restarts: the scheduler saves each entry
+ * before confirming it, deletes it once released and loads everything back at
+ * startup. Calls are made from the scheduler's tick thread, except
+ * {@link #save} which runs on the caller's thread.
+ */
+public interface ScheduledNotificationStore {
+
+    void save(String id, Instant dueAt, NotificationRequest request);
+
+    void delete(Collection<String> ids);
+
+    /**
+     * Visit every stored entry
+     */
+    void loadAll(Loader loader);
+
+    @FunctionalInterface
+    interface Loader {
+        void accept(String id, Instant dueAt, NotificationRequest request);
+    }
+}
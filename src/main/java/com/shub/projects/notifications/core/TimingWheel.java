@@ -0,0 +1,141 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationRequest;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of scheduled notifications
+ *
+ * Level 0 has one slot per tick; every higher level has slots {@code wheel-size}
+ * times coarser. An entry goes to the lowest level whose span covers its
+ * deadline and is cascaded one level down when the wheel reaches its slot, so
+ * adding and expiring are O(1) and an entry is moved at most once per level.
+ * Entries further out than the top level's span wait in its last slot and are
+ * placed again when it cascades.
+ *
+ * Slots are singly linked lists threaded through the entries themselves, so
+ * the wheel allocates nothing per entry beyond the entry. Not thread-safe: the
+ * scheduler's tick thread owns it.
+ */
+final class TimingWheel {
+
+    /**
+     * Scheduled notification; the ID is a UUID kept as two longs
+     */
+    static final class Entry {
+
+        final long deadlineTick;
+        final long idHigh;
+        final long idLow;
+        final NotificationRequest request;
+        Entry next;
+
+        Entry(long deadlineTick, long idHigh, long idLow, NotificationRequest request) {
+            this.deadlineTick = deadlineTick;
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.request = request;
+        }
+    }
+
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Entry[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param wheelSize Slots per level, rounded up to a power of two
+     * @param levels    Number of levels
+     * @param startTick Tick the wheel starts at
+     */
+    TimingWheel(int wheelSize, int levels, long startTick) {
+        this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(2, wheelSize) - 1));
+        this.mask = (1 << bits) - 1;
+        this.levels = Math.max(1, Math.min(levels, 63 / bits));
+        this.slots = new Entry[this.levels][1 << bits];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Add an entry
+     *
+     * @return false if the entry is already due and was not added
+     */
+    boolean add(Entry entry) {
+        if (entry.deadlineTick <= currentTick) {
+            return false;
+        }
+        place(entry);
+        size++;
+        return true;
+    }
+
+    /**
+     * Advance to a tick, handing every entry that falls due to the consumer
+     */
+    void advanceTo(long tick, Consumer<Entry> expired) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask), expired);
+                }
+            }
+
+            int slot = (int) (currentTick & mask);
+            Entry entry = slots[0][slot];
+            slots[0][slot] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = null;
+                size--;
+                expired.accept(entry);
+                entry = next;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, int slot, Consumer<Entry> expired) {
+        Entry entry = slots[level][slot];
+        slots[level][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.next = null;
+            if (entry.deadlineTick <= currentTick) {
+                size--;
+                expired.accept(entry);
+            } else {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long target = entry.deadlineTick;
+        long span = 1L << (bits * levels);
+        if (delta >= span) {
+            // Beyond the top level: park in its furthest slot and place again on cascade
+            target = currentTick + span - 1;
+        }
+        int slot = (int) ((target >>> (bits * level)) & mask);
+        entry.next = slots[level][slot];
+        slots[level][slot] = entry;
+    }
+}
@@ -0,0 +1,161 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.config.VirtualThreads;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch channel that runs every task on its own virtual thread
+ *
+ * Tasks wait in a {@link PriorityTaskQueue} until one of {@code concurrency}
+ * permits is free, so the provider sees at most that many calls at once and
+ * the most urgent waiting task always starts next. A virtual thread is only
+ * started for a task that holds a permit, and a finishing task hands its permit
+ * straight to the next queued one.
+ */
+final class VirtualDispatchChannel implements DispatchChannel {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int concurrency;
+    private final PriorityTaskQueue queue;
+    private final NotificationProperties.RejectionPolicy rejectionPolicy;
+    private volatile boolean shuttingDown;
+
+    VirtualDispatchChannel(String channel, NotificationProperties.ChannelConfig channelConfig,
+            NotificationProperties.PriorityConfig priorityConfig) {
+        this.executor = VirtualThreads.newThreadPerTaskExecutor("notification-" + channel.toLowerCase() + "-");
+        this.concurrency = channelConfig.getConcurrency();
+        this.permits = new Semaphore(concurrency);
+        this.queue = new PriorityTaskQueue(channelConfig.getQueueCapacity(), priorityConfig);
+        this.rejectionPolicy = channelConfig.getRejectionPolicy();
+    }
+
+    @Override
+    public void execute(DispatchTask task) {
+        if (shuttingDown || executor.isShutdown()) {
+            task.reject("Dispatcher is shut down");
+            return;
+        }
+        // Nothing is waiting, so a free permit may go straight to this task
+        if (queue.isEmpty() && permits.tryAcquire()) {
+            start(task);
+            return;
+        }
+
+        if (!queue.offer(task)) {
+            switch (rejectionPolicy) {
+                case CALLER_RUNS:
+                    if (NonBlockingThreads.isCurrent()) {
+                        task.reject("Dispatch queue is full");
+                    } else {
+                        task.run();
+                    }
+                    return;
+                case DISCARD_OLDEST:
+                    Runnable evicted = queue.evictFor(task);
+                    if (evicted != null && queue.offer(task)) {
+                        ((DispatchTask) evicted).reject("Evicted from full dispatch queue");
+                        break;
+                    }
+                    if (evicted != null) {
+                        queue.offer(evicted);
+                    }
+                    task.reject("Dispatch queue is full");
+                    return;
+                case FAIL:
+                default:
+                    task.reject("Dispatch queue is full");
+                    return;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Start queued tasks while permits are free. A finishing task releases its
+     * permit before draining, so a task queued concurrently is either seen here
+     * or finds the permit itself.
+     */
+    private void drain() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                permits.release();
+                continue;
+            }
+            start((DispatchTask) next);
+        }
+    }
+
+    private void start(DispatchTask task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                    drain();
+                    closeIfDrained();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            task.reject("Dispatcher is shut down");
+        }
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return concurrency - permits.availablePermits();
+    }
+
+    /**
+     * Stop accepting tasks; queued ones still run before the executor closes
+     */
+    @Override
+    public void shutdown() {
+        shuttingDown = true;
+        closeIfDrained();
+    }
+
+    /**
+     * Reject everything still queued; running tasks are interrupted and complete
+     * with their failure
+     */
+    @Override
+    public void shutdownNow() {
+        shuttingDown = true;
+        Runnable queued;
+        while ((queued = queue.poll()) != null) {
+            ((DispatchTask) queued).reject("Dispatcher is shut down");
+        }
+        executor.shutdownNow();
+    }
+
+    private void closeIfDrained() {
+        // A drainer between poll and start holds a permit, so all permits free means nothing is in hand
+        if (shuttingDown && queue.isEmpty() && permits.availablePermits() == concurrency) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.Instant;
 import java.util.Map;
 
 /**
@@ -39,9 +41,26 @@ public class NotificationRequest {
 
     private MediaAttachment media;
 
+    /**
+     * Client-chosen key; repeated requests with the same key are sent once
+     * (also accepted as the Idempotency-Key header)
+     */
+    private String idempotencyKey;
+
     @Builder.Default
     private Priority priority = Priority.NORMAL;
 
+    /**
+     * Deliver at this time instead of now (ISO-8601, e.g. 2026-01-07T09:00:00Z)
+     */
+    private Instant sendAt;
+
+    /**
+     * Deliver after this many seconds; ignored when sendAt is set
+     */
+    @PositiveOrZero(message = "Delay must not be negative")
+    private Long delaySeconds;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -21,6 +21,7 @@ public class NotificationResponse {
     private String messageId;
     private String status;
     private String errorMessage;
+    private String errorCode; // e.g. HTTP_503, SMTP_451, GATEWAY_006, CONNECT_FAILED
     private LocalDateTime timestamp;
     private Map<String, Object> providerResponse;
 
@@ -33,10 +34,24 @@ public class NotificationResponse {
                 .build();
     }
 
+    public static NotificationResponse scheduled(String scheduleId) {
+        return NotificationResponse.builder()
+                .success(true)
+                .messageId(scheduleId)
+                .status("SCHEDULED")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
     public static NotificationResponse failure(String errorMessage) {
+        return failure(null, errorMessage);
+    }
+
+    public static NotificationResponse failure(String errorCode, String errorMessage) {
         return NotificationResponse.builder()
                 .success(false)
                 .status("FAILED")
+                .errorCode(errorCode)
                 .errorMessage(errorMessage)
                 .timestamp(LocalDateTime.now())
                 .build();
@@ -0,0 +1,45 @@
+package com.shub.projects.notifications.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * WhatsApp message delivery status reported by the Cloud API webhook
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhatsAppStatusUpdate {
+
+    private String messageId; // wamid returned when the message was sent
+    private String recipientId;
+    private String status; // sent, delivered, read, failed
+    private long timestamp; // epoch seconds
+    private Integer errorCode;
+    private String errorTitle;
+
+    /**
+     * Position of the status in the delivery lifecycle, used to ignore
+     * callbacks that arrive out of order
+     */
+    public int rank() {
+        if (status == null) {
+            return 0;
+        }
+        switch (status) {
+            case "sent":
+                return 1;
+            case "delivered":
+                return 2;
+            case "read":
+                return 3;
+            case "failed":
+                return 4;
+            default:
+                return 0;
+        }
+    }
+}
@@ -5,11 +5,26 @@ package com.shub.projects.notifications.exception;
  */
 public class NotificationException extends RuntimeException {
 
+    private final String errorCode;
+
     public NotificationException(String message) {
-        super(message);
+        this(message, (String) null);
     }
 
     public NotificationException(String message, Throwable cause) {
         super(message, cause);
+        this.errorCode = null;
+    }
+
+    /**
+     * @param errorCode Machine-readable cause, copied to the failure response
+     */
+    public NotificationException(String message, String errorCode) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
     }
 }
@@ -0,0 +1,217 @@
+package com.shub.projects.notifications.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rabbitmq.client.Channel;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.core.NotificationService;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes NotificationRequest messages from RabbitMQ
+ *
+ * Each provider type gets a durable queue ({@code queue-prefix} + type, e.g.
+ * notification.requests.sms). Messages are received in batches of up to
+ * {@code batch-size}, sent through {@link NotificationService#sendBulk} and
+ * acknowledged with a single multiple-ack once every send of the batch has
+ * completed, so a crash redelivers unfinished work. One result per message is
+ * published to the {@code reply-exchange} (routing key
+ * {@code <type>.sent|failed}), or to the message's reply-to queue if it has one.
+ *
+ * A message that cannot be read or fails validation gets a failure result on
+ * its own. Once the batch has been handed to the send path it is acknowledged
+ * even if sending throws, with a failure result per message, so nothing is sent
+ * twice.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.rabbitmq.ingestion", name = "enabled", havingValue = "true")
+public class NotificationQueueConsumer implements SmartLifecycle {
+
+    private final NotificationService notificationService;
+    private final RabbitTemplate rabbitTemplate;
+    private final NotificationProperties.RabbitMQConfig.IngestionConfig config;
+    private final ObjectReader requestReader;
+    private final ObjectWriter responseWriter;
+    private final Validator validator;
+    private final List<SimpleMessageListenerContainer> containers = new ArrayList<>();
+    private volatile boolean running;
+
+    public NotificationQueueConsumer(NotificationService notificationService,
+            List<NotificationProvider> providers,
+            NotificationProperties properties,
+            ConnectionFactory connectionFactory,
+            RabbitTemplate rabbitTemplate,
+            RabbitAdmin rabbitAdmin,
+            ObjectMapper objectMapper,
+            ObjectProvider<Validator> validator) {
+        this.notificationService = notificationService;
+        this.rabbitTemplate = rabbitTemplate;
+        this.config = properties.getRabbitmq().getIngestion();
+        this.requestReader = objectMapper.readerFor(NotificationRequest.class);
+        this.responseWriter = objectMapper.writerFor(NotificationResponse.class);
+        this.validator = validator.getIfAvailable();
+
+        rabbitAdmin.declareExchange(new TopicExchange(config.getReplyExchange(), true, false));
+        for (NotificationProvider provider : providers) {
+            String queueName = config.getQueuePrefix() + provider.getType().toLowerCase();
+            rabbitAdmin.declareQueue(new Queue(queueName, true));
+            containers.add(createContainer(connectionFactory, queueName));
+            log.info("Consuming {} notifications from queue {}", provider.getType(), queueName);
+        }
+    }
+
+    @Override
+    public void start() {
+        containers.forEach(SimpleMessageListenerContainer::start);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        // Containers finish the batch in hand before they stop
+        containers.forEach(SimpleMessageListenerContainer::stop);
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private SimpleMessageListenerContainer createContainer(ConnectionFactory connectionFactory, String queueName) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(queueName);
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setPrefetchCount(Math.max(config.getPrefetch(), config.getBatchSize()));
+        container.setConsumerBatchEnabled(true);
+        container.setBatchSize(config.getBatchSize());
+        container.setConcurrentConsumers(config.getConcurrency());
+        container.setMaxConcurrentConsumers(Math.max(config.getConcurrency(), config.getMaxConcurrency()));
+        container.setMessageListener((ChannelAwareBatchMessageListener) this::onMessageBatch);
+        return container;
+    }
+
+    /**
+     * Send one batch and acknowledge it after every send has completed
+     */
+    private void onMessageBatch(List<Message> messages, Channel channel) {
+        try {
+            processBatch(messages, channel);
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    private void processBatch(List<Message> messages, Channel channel) throws IOException {
+        long lastDeliveryTag = messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+        NotificationResponse[] responses = new NotificationResponse[messages.size()];
+        List<NotificationRequest> requests = new ArrayList<>(messages.size());
+        List<Integer> indices = new ArrayList<>(messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            NotificationRequest request = null;
+            try {
+                request = requestReader.readValue(messages.get(i).getBody());
+                responses[i] = validate(request);
+            } catch (IOException | RuntimeException e) {
+                responses[i] = NotificationResponse.failure("Invalid request: " + e.getMessage());
+            }
+            if (responses[i] == null) {
+                requests.add(request);
+                indices.add(i);
+            }
+        }
+
+        if (!requests.isEmpty()) {
+            try {
+                List<NotificationResponse> sent = notificationService.sendBulk(requests).join();
+                for (int i = 0; i < indices.size(); i++) {
+                    responses[indices.get(i)] = sent.get(i);
+                }
+            } catch (RuntimeException e) {
+                // Some of the batch may have gone out; acknowledge rather than requeue and resend it
+                log.error("Failed to send batch of {} queued notifications", requests.size(), e);
+                for (int index : indices) {
+                    if (responses[index] == null) {
+                        responses[index] = NotificationResponse.failure("Failed to send notification: "
+                                + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            publishResult(messages.get(i), responses[i]);
+        }
+        channel.basicAck(lastDeliveryTag, true);
+    }
+
+    private NotificationResponse validate(NotificationRequest request) {
+        if (request == null) {
+            return NotificationResponse.failure("Invalid request: empty message body");
+        }
+        if (validator == null) {
+            return null;
+        }
+        Set<ConstraintViolation<NotificationRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return NotificationResponse.failure(violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(", ")));
+    }
+
+    private void publishResult(Message source, NotificationResponse response) {
+        MessageProperties sourceProperties = source.getMessageProperties();
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setCorrelationId(sourceProperties.getCorrelationId() != null
+                ? sourceProperties.getCorrelationId()
+                : sourceProperties.getMessageId());
+
+        try {
+            Message result = new Message(responseWriter.writeValueAsBytes(response), properties);
+            if (sourceProperties.getReplyTo() != null) {
+                rabbitTemplate.send("", sourceProperties.getReplyTo(), result);
+            } else {
+                String channel = sourceProperties.getConsumerQueue() != null
+                        ? sourceProperties.getConsumerQueue().substring(config.getQueuePrefix().length())
+                        : "unknown";
+                rabbitTemplate.send(config.getReplyExchange(),
+                        channel + (response.isSuccess() ? ".sent" : ".failed"), result);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The notification itself was sent; a lost result must not trigger a resend
+            log.warn("Failed to publish notification result: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.shub.projects.notifications.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Notification history record
+ *
+ * Rows are inserted in JDBC batches by NotificationLogWriter; keep the column
+ * list there and in db/notification-schema.sql in sync with this mapping.
+ * created_at is UTC.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "notification_log", indexes = {
+        @Index(name = "idx_notification_log_recipient", columnList = "recipient, created_at"),
+        @Index(name = "idx_notification_log_message_id", columnList = "message_id")
+})
+public class NotificationLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Column(name = "template_id", length = 100)
+    private String templateId;
+
+    @Column(length = 10)
+    private String priority;
+
+    private boolean success;
+
+    @Column(length = 20)
+    private String status;
+
+    @Column(name = "message_id", length = 128)
+    private String messageId;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package com.shub.projects.notifications.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Pending scheduled notification
+ *
+ * Rows are written and deleted with plain JDBC by JdbcScheduledNotificationStore;
+ * keep the column list there and in db/notification-schema.sql in sync with
+ * this mapping. Times are UTC.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scheduled_notification", indexes = {
+        @Index(name = "idx_scheduled_notification_due_at", columnList = "due_at")
+})
+public class ScheduledNotification {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    @Lob
+    @Column(nullable = false)
+    private String request; // NotificationRequest as JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -3,6 +3,12 @@ package com.shub.projects.notifications.provider;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 import com.shub.projects.notifications.dto.NotificationType;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Base interface for all notification providers
@@ -26,6 +32,58 @@ public interface NotificationProvider {
      */
     NotificationResponse send(NotificationRequest request);
 
+    /**
+     * Send a notification without blocking the calling thread
+     * 
+     * The default implementation runs {@link #send} on the bounded elastic
+     * scheduler. Providers backed by a non-blocking client should override it.
+     * 
+     * @param request Notification request
+     * @return Mono emitting the notification response
+     */
+    default Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+        return Mono.fromCallable(() -> send(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Maximum number of requests passed to one {@link #sendBatch} call
+     * 
+     * @return Batch size, 1 if the provider has no batch support
+     */
+    default int getMaxBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Send several notifications of this provider's type together
+     * 
+     * The default implementation sends them one by one. Providers that can share
+     * a connection or gateway call across messages should override it.
+     * 
+     * @param requests Notification requests, at most {@link #getMaxBatchSize()}
+     * @return One response per request, in the same order
+     */
+    default List<NotificationResponse> sendBatch(List<NotificationRequest> requests) {
+        return requests.stream()
+                .map(this::send)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Send several notifications together without holding the calling thread
+     * 
+     * The default implementation runs {@link #sendBatch} on the calling thread.
+     * Providers backed by a non-blocking client should override it so the
+     * dispatch worker is released while the calls are in flight.
+     * 
+     * @param requests Notification requests, at most {@link #getMaxBatchSize()}
+     * @return Future of one response per request, in the same order
+     */
+    default CompletableFuture<List<NotificationResponse>> sendBatchAsync(List<NotificationRequest> requests) {
+        return CompletableFuture.completedFuture(sendBatch(requests));
+    }
+
     /**
      * Check if this provider is enabled and configured
      */
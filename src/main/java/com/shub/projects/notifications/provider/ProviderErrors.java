@@ -0,0 +1,113 @@
+package com.shub.projects.notifications.provider;
+
+import com.shub.projects.notifications.exception.NotificationException;
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.sun.mail.smtp.SMTPSenderFailedException;
+import com.sun.mail.util.MailConnectException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import javax.mail.MessagingException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Error codes shared by the providers
+ *
+ * Failure responses carry one of these in {@code errorCode} so callers and the
+ * retry engine can tell a gateway outage from a bad request without parsing
+ * provider messages.
+ */
+public final class ProviderErrors {
+
+    /** No connection could be made, so nothing was sent */
+    public static final String CONNECT_FAILED = "CONNECT_FAILED";
+    /** Connection reset or otherwise failed after the request may have been sent */
+    public static final String IO_ERROR = "IO_ERROR";
+    /** No response within the configured timeout; the request may have been delivered */
+    public static final String TIMEOUT = "TIMEOUT";
+    /** Throttled by the gateway or by a local rate limiter */
+    public static final String RATE_LIMITED = "RATE_LIMITED";
+    /** Every gateway of the channel is out of rotation (circuit open) */
+    public static final String UNAVAILABLE = "UNAVAILABLE";
+    /** Gateway accepted a multi-recipient call without reporting this recipient's result */
+    public static final String UNCONFIRMED = "UNCONFIRMED";
+    /** Gateway accepted a multi-recipient call but left this recipient out of its result */
+    public static final String RECIPIENT_REJECTED = "RECIPIENT_REJECTED";
+    /** Prefix for HTTP status failures, e.g. HTTP_503 */
+    public static final String HTTP_PREFIX = "HTTP_";
+    /** Prefix for SMTP reply codes, e.g. SMTP_451 */
+    public static final String SMTP_PREFIX = "SMTP_";
+    /** Prefix for codes reported in a gateway's response body, e.g. GATEWAY_006 */
+    public static final String GATEWAY_PREFIX = "GATEWAY_";
+
+    private ProviderErrors() {
+    }
+
+    /**
+     * Error code for a send failure
+     *
+     * @return Code, or null if the failure has no recognisable cause
+     */
+    public static String codeOf(Throwable error) {
+        String ioError = null;
+        for (Throwable cause = error; cause != null; cause = next(cause)) {
+            if (cause instanceof NotificationException && ((NotificationException) cause).getErrorCode() != null) {
+                return ((NotificationException) cause).getErrorCode();
+            }
+            if (cause instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) cause).getRawStatusCode();
+                return status == 429 ? RATE_LIMITED : HTTP_PREFIX + status;
+            }
+            if (cause instanceof SMTPSendFailedException) {
+                return SMTP_PREFIX + ((SMTPSendFailedException) cause).getReturnCode();
+            }
+            if (cause instanceof SMTPAddressFailedException) {
+                return SMTP_PREFIX + ((SMTPAddressFailedException) cause).getReturnCode();
+            }
+            if (cause instanceof SMTPSenderFailedException) {
+                return SMTP_PREFIX + ((SMTPSenderFailedException) cause).getReturnCode();
+            }
+            if (isConnectFailure(cause)) {
+                return CONNECT_FAILED;
+            }
+            // Netty's ReadTimeoutException/WriteTimeoutException signal reactor-netty's response timeout
+            if (cause instanceof TimeoutException || cause instanceof io.netty.handler.timeout.TimeoutException
+                    || cause instanceof SocketTimeoutException) {
+                return TIMEOUT;
+            }
+            if (cause instanceof WebClientRequestException || cause instanceof IOException) {
+                // Keep looking: the cause may show the request never left
+                ioError = IO_ERROR;
+            }
+        }
+        return ioError;
+    }
+
+    /**
+     * Failures that happen before any byte of the request is sent: connect
+     * errors and waits for a pooled connection
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        // Includes netty's ConnectTimeoutException
+        if (error instanceof ConnectException || error instanceof MailConnectException
+                || error instanceof UnknownHostException || error instanceof NoRouteToHostException) {
+            return true;
+        }
+        // reactor-netty's shaded PoolAcquireTimeoutException / PoolAcquirePendingLimitException
+        return error.getClass().getSimpleName().startsWith("PoolAcquire");
+    }
+
+    private static Throwable next(Throwable error) {
+        // Address failures are chained through getNextException, not getCause
+        if (error instanceof MessagingException && ((MessagingException) error).getNextException() != null) {
+            return ((MessagingException) error).getNextException();
+        }
+        return error.getCause() != error ? error.getCause() : null;
+    }
+}
@@ -1,36 +1,60 @@
 package com.shub.projects.notifications.provider.email;
 
 import com.shub.projects.notifications.config.EmailConfig;
+import com.shub.projects.notifications.config.NotificationProperties;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 import com.shub.projects.notifications.provider.NotificationProvider;
-import lombok.RequiredArgsConstructor;
+import com.shub.projects.notifications.provider.ProviderErrors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
+import javax.annotation.PreDestroy;
 import javax.mail.MessagingException;
+import javax.mail.Session;
 import javax.mail.internet.MimeMessage;
 import java.io.File;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Properties;
 
 /**
  * Email Notification Provider
  * 
- * Sends email notifications via configured SMTP server
+ * Sends email notifications via configured SMTP server over a pool of
+ * long-lived SMTP connections
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "notification.email", name = "enabled", havingValue = "true")
 public class EmailProvider implements NotificationProvider {
 
     private final EmailConfig emailConfig;
+    private final Session session;
+    private final SmtpTransportPool transportPool;
+
+    public EmailProvider(EmailConfig emailConfig, NotificationProperties properties) {
+        this.emailConfig = emailConfig;
+        this.session = createSession();
+
+        // Every EMAIL worker holds one connection while it sends, so a smaller pool only makes workers wait
+        int concurrency = properties.getDispatch().forChannel(getType()).getConcurrency();
+        int maxSize = emailConfig.getPool().getMaxSize() > 0 ? emailConfig.getPool().getMaxSize() : concurrency;
+        if (maxSize < concurrency) {
+            log.warn("SMTP pool max-size {} is below the EMAIL dispatch concurrency {}; workers will wait "
+                    + "for connections", maxSize, concurrency);
+        }
+        this.transportPool = new SmtpTransportPool(session, emailConfig, maxSize);
+        log.info("Email provider initialized with SMTP pool: maxSize={}, maxMessagesPerConnection={}",
+                maxSize, emailConfig.getPool().getMaxMessagesPerConnection());
+    }
 
     @Override
     public String getType() {
@@ -45,97 +69,138 @@ public class EmailProvider implements NotificationProvider {
     @Override
     public NotificationResponse send(NotificationRequest request) {
         log.info("Sending email to: {}", request.getRecipient());
+        return sendBatch(Collections.singletonList(request)).get(0);
+    }
 
-        try {
-            // Create mail sender
-            JavaMailSenderImpl mailSender = createMailSender();
-
-            // Create MIME message
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            // Set email properties
-            helper.setFrom(ObjectUtils.isEmpty(emailConfig.getFromEmail())
-                    ? emailConfig.getUsername()
-                    : emailConfig.getFromEmail());
-            helper.setTo(request.getRecipient());
-            helper.setSubject(request.getSubject() != null ? request.getSubject() : "Notification");
-            helper.setText(request.getMessage(), isHtmlContent(request.getMessage()));
-
-            // Add attachments if present
-            if (request.getMedia() != null && !ObjectUtils.isEmpty(request.getMedia().getUrl())) {
-                File attachment = new File(request.getMedia().getUrl());
-                if (attachment.exists()) {
-                    helper.addAttachment(
-                            ObjectUtils.isEmpty(request.getMedia().getFilename())
-                                    ? attachment.getName()
-                                    : request.getMedia().getFilename(),
-                            attachment);
-                }
-            }
+    @Override
+    public int getMaxBatchSize() {
+        return emailConfig.getBatchSize();
+    }
 
-            // Add multiple attachments from metadata if present
-            if (request.getMetadata() != null && request.getMetadata().containsKey("attachments")) {
-                @SuppressWarnings("unchecked")
-                List<String> attachments = (List<String>) request.getMetadata().get("attachments");
-                for (String attachmentPath : attachments) {
-                    File file = new File(attachmentPath);
-                    if (file.exists()) {
-                        helper.addAttachment(file.getName(), file);
-                    }
-                }
+    /**
+     * Send several emails over shared SMTP sessions
+     * 
+     * The messages are built first, then sent back to back on one pooled
+     * connection, moving to another only when a connection is recycled or
+     * fails. Each request gets its own success or failure response.
+     */
+    @Override
+    public List<NotificationResponse> sendBatch(List<NotificationRequest> requests) {
+        if (requests.size() > 1) {
+            log.info("Sending batch of {} emails", requests.size());
+        }
+
+        NotificationResponse[] responses = new NotificationResponse[requests.size()];
+        List<MimeMessage> messages = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                messages.add(buildMessage(requests.get(i)));
+            } catch (Exception e) {
+                messages.add(null);
+                responses[i] = failure(e);
             }
+        }
 
-            // Send email
-            mailSender.send(mimeMessage);
-
-            log.info("Email sent successfully to: {}", request.getRecipient());
-
-            return NotificationResponse.builder()
-                    .success(true)
-                    .messageId(generateMessageId())
-                    .timestamp(LocalDateTime.now())
-                    .build();
-
-        } catch (MessagingException e) {
-            log.error("Failed to send email", e);
-            return NotificationResponse.builder()
-                    .success(false)
-                    .errorMessage("Messaging error: " + e.getMessage())
-                    .timestamp(LocalDateTime.now())
-                    .build();
-        } catch (Exception e) {
-            log.error("Failed to send email", e);
-            return NotificationResponse.builder()
-                    .success(false)
-                    .errorMessage(e.getMessage())
-                    .timestamp(LocalDateTime.now())
-                    .build();
+        List<MessagingException> failures = transportPool.sendAll(messages);
+        for (int i = 0; i < responses.length; i++) {
+            if (responses[i] != null) {
+                continue;
+            }
+            if (failures.get(i) == null) {
+                log.info("Email sent successfully to: {}", requests.get(i).getRecipient());
+                responses[i] = NotificationResponse.builder()
+                        .success(true)
+                        .messageId(generateMessageId())
+                        .timestamp(LocalDateTime.now())
+                        .build();
+            } else {
+                responses[i] = failure(failures.get(i));
+            }
         }
+        return Arrays.asList(responses);
     }
 
     /**
-     * Create and configure JavaMailSender with SMTP settings
+     * Build a ready-to-send MIME message for the request
      */
-    private JavaMailSenderImpl createMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    private MimeMessage buildMessage(NotificationRequest request) throws MessagingException {
+        // Create MIME message
+        MimeMessage mimeMessage = new MimeMessage(session);
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+
+        // Set email properties
+        helper.setFrom(ObjectUtils.isEmpty(emailConfig.getFromEmail())
+                ? emailConfig.getUsername()
+                : emailConfig.getFromEmail());
+        helper.setTo(request.getRecipient());
+        helper.setSubject(request.getSubject() != null ? request.getSubject() : "Notification");
+        helper.setText(request.getMessage(), isHtmlContent(request.getMessage()));
+
+        // Add attachments if present
+        if (request.getMedia() != null && !ObjectUtils.isEmpty(request.getMedia().getUrl())) {
+            File attachment = new File(request.getMedia().getUrl());
+            if (attachment.exists()) {
+                helper.addAttachment(
+                        ObjectUtils.isEmpty(request.getMedia().getFilename())
+                                ? attachment.getName()
+                                : request.getMedia().getFilename(),
+                        attachment);
+            }
+        }
+
+        // Add multiple attachments from metadata if present
+        if (request.getMetadata() != null && request.getMetadata().containsKey("attachments")) {
+            @SuppressWarnings("unchecked")
+            List<String> attachments = (List<String>) request.getMetadata().get("attachments");
+            for (String attachmentPath : attachments) {
+                File file = new File(attachmentPath);
+                if (file.exists()) {
+                    helper.addAttachment(file.getName(), file);
+                }
+            }
+        }
 
-        mailSender.setHost(emailConfig.getHost());
-        mailSender.setPort(emailConfig.getPort());
-        mailSender.setUsername(emailConfig.getUsername());
-        mailSender.setPassword(emailConfig.getPassword());
-        mailSender.setProtocol(emailConfig.getProtocol());
+        mimeMessage.setSentDate(new Date());
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    private NotificationResponse failure(Exception e) {
+        log.error("Failed to send email", e);
+        return NotificationResponse.builder()
+                .success(false)
+                .errorCode(ProviderErrors.codeOf(e))
+                .errorMessage(e instanceof MessagingException
+                        ? "Messaging error: " + e.getMessage()
+                        : e.getMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @PreDestroy
+    public void closePool() {
+        transportPool.close();
+    }
+
+    /**
+     * Create the mail session shared by all pooled SMTP connections
+     */
+    private Session createSession() {
+        String protocol = emailConfig.getProtocol();
+        EmailConfig.Pool pool = emailConfig.getPool();
 
         // Configure mail properties
         Properties props = new Properties();
+        props.put("mail.transport.protocol", protocol);
         props.put(emailConfig.getAuthPropertyKey(), emailConfig.getAuthPropertyValue());
         props.put(emailConfig.getSslEnablePropertyKey(), emailConfig.getSslEnablePropertyValue());
         props.put(emailConfig.getSslTrustPropertyKey(), emailConfig.getSslTrustPropertyValue());
+        props.put("mail." + protocol + ".connectiontimeout", String.valueOf(pool.getConnectTimeout().toMillis()));
+        props.put("mail." + protocol + ".timeout", String.valueOf(pool.getReadTimeout().toMillis()));
+        props.put("mail." + protocol + ".writetimeout", String.valueOf(pool.getReadTimeout().toMillis()));
         props.put("mail.debug", "false");
 
-        mailSender.setJavaMailProperties(props);
-
-        return mailSender;
+        return Session.getInstance(props);
     }
 
     /**
@@ -0,0 +1,266 @@
+package com.shub.projects.notifications.provider.email;
+
+import com.shub.projects.notifications.config.EmailConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of authenticated, long-lived SMTP transports
+ *
+ * Each connection sends many messages before it is recycled, so the TCP and
+ * TLS handshake is paid once per connection instead of once per email. Idle
+ * connections are evicted in the background, validated with NOOP before reuse
+ * after a quiet period, and replaced when they fail. The pool uses no monitors,
+ * so borrowers may run on virtual threads.
+ */
+@Slf4j
+class SmtpTransportPool implements AutoCloseable {
+
+    private final Session session;
+    private final EmailConfig emailConfig;
+    private final EmailConfig.Pool poolConfig;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * @param maxSize Maximum number of open connections
+     */
+    SmtpTransportPool(Session session, EmailConfig emailConfig, int maxSize) {
+        this.session = session;
+        this.emailConfig = emailConfig;
+        this.poolConfig = emailConfig.getPool();
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("smtp-pool-evictor-");
+        threadFactory.setDaemon(true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = poolConfig.getEvictionInterval().toMillis();
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send messages back to back over as few pooled connections as possible
+     *
+     * A connection is kept for the whole list unless it reaches its message cap
+     * or breaks. A message that fails on a dead reused connection is retried once
+     * on a fresh one.
+     *
+     * @param messages Messages with {@code saveChanges()} applied; null entries are skipped
+     * @return One entry per message: null if it was sent, otherwise the failure
+     */
+    List<MessagingException> sendAll(List<MimeMessage> messages) {
+        List<MessagingException> failures = Arrays.asList(new MessagingException[messages.size()]);
+        Connection connection = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                if (message == null) {
+                    continue;
+                }
+                try {
+                    if (connection == null) {
+                        connection = borrow();
+                    }
+                    connection.send(message);
+                } catch (MessagingException e) {
+                    MessagingException failure = e;
+                    if (connection != null && connection.isBroken()) {
+                        boolean retry = connection.wasReused();
+                        release(connection);
+                        connection = null;
+                        if (retry) {
+                            log.debug("Pooled SMTP connection failed, retrying on a new connection: {}",
+                                    e.getMessage());
+                            try {
+                                connection = borrow();
+                                connection.send(message);
+                                failure = null;
+                            } catch (MessagingException retryFailure) {
+                                failure = retryFailure;
+                                if (connection != null && connection.isBroken()) {
+                                    release(connection);
+                                    connection = null;
+                                }
+                            }
+                        }
+                    }
+                    failures.set(i, failure);
+                }
+
+                if (connection != null && connection.messagesSent >= poolConfig.getMaxMessagesPerConnection()) {
+                    release(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Take a connection out of the pool, opening a new one if none is idle
+     */
+    Connection borrow() throws MessagingException {
+        if (closed) {
+            throw new MessagingException("SMTP connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(poolConfig.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for an SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (connection.isReusable()) {
+                    return connection;
+                }
+                connection.close();
+            }
+            return open();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed connection; broken or exhausted connections are closed
+     */
+    void release(Connection connection) {
+        try {
+            if (closed || connection.isBroken()
+                    || connection.messagesSent >= poolConfig.getMaxMessagesPerConnection()) {
+                connection.close();
+            } else {
+                connection.lastUsed = System.nanoTime();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    private Connection open() throws MessagingException {
+        Transport transport = session.getTransport(emailConfig.getProtocol());
+        transport.connect(emailConfig.getHost(), emailConfig.getPort(),
+                emailConfig.getUsername(), emailConfig.getPassword());
+        log.debug("Opened SMTP connection to {}:{}", emailConfig.getHost(), emailConfig.getPort());
+        return new Connection(transport);
+    }
+
+    private void evictIdle() {
+        long idleTimeout = poolConfig.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        for (Connection connection : idle) {
+            if (now - connection.lastUsed > idleTimeout && idle.remove(connection)) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * One SMTP transport, used by a single borrower at a time
+     */
+    final class Connection {
+
+        private final Transport transport;
+        private volatile long lastUsed = System.nanoTime();
+        private int messagesSent;
+        private boolean reused;
+        private boolean broken;
+
+        private Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        /**
+         * Send a message that has already had {@code saveChanges()} applied
+         */
+        void send(MimeMessage message) throws MessagingException {
+            reused = messagesSent > 0;
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                messagesSent++;
+            } catch (SendFailedException e) {
+                // Rejected recipients leave the session usable
+                messagesSent++;
+                broken = !transport.isConnected();
+                throw e;
+            } catch (MessagingException e) {
+                broken = true;
+                throw e;
+            }
+        }
+
+        boolean isBroken() {
+            return broken;
+        }
+
+        boolean wasReused() {
+            return reused;
+        }
+
+        private boolean isReusable() {
+            long idleNanos = System.nanoTime() - lastUsed;
+            if (idleNanos > poolConfig.getIdleTimeout().toNanos()) {
+                return false;
+            }
+            if (idleNanos > poolConfig.getValidateAfterIdle().toNanos()) {
+                // SMTPTransport.isConnected() issues a NOOP
+                return transport.isConnected();
+            }
+            return true;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
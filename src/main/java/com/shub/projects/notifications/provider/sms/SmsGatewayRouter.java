@@ -0,0 +1,257 @@
+package com.shub.projects.notifications.provider.sms;
+
+import com.shub.projects.notifications.config.SmsConfig;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Chooses the SMS gateway for each call
+ *
+ * Every gateway keeps exponentially weighted averages of its latency and error
+ * rate. A call goes to a gateway picked at random with probability
+ * proportional to {@code weight / score}, where the score is the average
+ * latency inflated by the error rate, so faster and healthier gateways take
+ * more traffic while the others keep receiving enough to stay measured. The
+ * remaining gateways follow in score order as failover targets.
+ *
+ * {@code failure-threshold} consecutive transport failures, timeouts, 5xx or
+ * throttling responses open a gateway's circuit; after {@code open-duration} a single
+ * probe call is let through and its outcome closes or reopens the circuit.
+ */
+@Slf4j
+final class SmsGatewayRouter {
+
+    private final SmsConfig.Routing config;
+    private final List<Route> routes;
+
+    SmsGatewayRouter(SmsConfig smsConfig) {
+        this.config = smsConfig.getRouting();
+        List<Route> compiled = new ArrayList<>();
+        for (SmsConfig.Gateway gateway : smsConfig.resolveGateways()) {
+            SmsUrlTemplate template = SmsUrlTemplate.compile(gateway);
+            if (!template.getUnknownPlaceholders().isEmpty()) {
+                log.warn("SMS gateway {} template has unknown placeholders that will be sent as-is: {}",
+                        gateway.getName(), template.getUnknownPlaceholders());
+            }
+            compiled.add(new Route(gateway, template));
+        }
+        this.routes = Collections.unmodifiableList(compiled);
+    }
+
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Largest recipient list any gateway accepts in one call
+     */
+    int getMaxRecipients() {
+        return routes.stream()
+                .mapToInt(route -> route.gateway.getMaxRecipientsPerRequest())
+                .max()
+                .orElse(1);
+    }
+
+    /**
+     * Gateways to try for one call, best first
+     *
+     * @param recipients Number of recipients the call carries
+     * @return At most {@code max-attempts} gateways that accept that many
+     *         recipients and are not known to be down; empty if there are none
+     */
+    List<Route> plan(int recipients) {
+        long now = System.nanoTime();
+        List<Route> candidates = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            if (route.gateway.getMaxRecipientsPerRequest() >= recipients && route.isAvailable(now)) {
+                candidates.add(route);
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+
+        double[] weights = new double[candidates.size()];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            Route route = candidates.get(i);
+            weights[i] = Math.max(0, route.gateway.getWeight()) / route.score();
+            total += weights[i];
+        }
+        int first = 0;
+        double pick = ThreadLocalRandom.current().nextDouble() * total;
+        while (first < weights.length - 1 && (pick -= weights[first]) >= 0) {
+            first++;
+        }
+
+        Route chosen = candidates.remove(first);
+        candidates.sort(Comparator.comparingDouble(Route::score));
+        candidates.add(0, chosen);
+        return candidates.subList(0, Math.min(candidates.size(), Math.max(1, config.getMaxAttempts())));
+    }
+
+    /**
+     * Whether a response means the gateway itself is unhealthy, as opposed to
+     * rejecting this particular message; counts against its score and circuit
+     */
+    static boolean isGatewayFailure(NotificationResponse response) {
+        String code = response.getErrorCode();
+        if (response.isSuccess() || code == null) {
+            return false;
+        }
+        return ProviderErrors.CONNECT_FAILED.equals(code)
+                || ProviderErrors.IO_ERROR.equals(code)
+                || ProviderErrors.TIMEOUT.equals(code)
+                || ProviderErrors.RATE_LIMITED.equals(code)
+                || code.startsWith(ProviderErrors.HTTP_PREFIX + "5");
+    }
+
+    /**
+     * Whether a failed call certainly sent nothing, so the message can go to
+     * another gateway without risking a duplicate SMS
+     *
+     * Timeouts and I/O errors are excluded: the gateway may have accepted the
+     * message before the reply was lost.
+     */
+    static boolean canFailOver(NotificationResponse response) {
+        String code = response.getErrorCode();
+        if (response.isSuccess() || code == null) {
+            return false;
+        }
+        return ProviderErrors.CONNECT_FAILED.equals(code)
+                || ProviderErrors.RATE_LIMITED.equals(code)
+                || ProviderErrors.UNAVAILABLE.equals(code)
+                || code.startsWith(ProviderErrors.HTTP_PREFIX + "5");
+    }
+
+    private enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * One gateway with its compiled template, health averages and circuit
+     */
+    final class Route {
+
+        private final SmsConfig.Gateway gateway;
+        private final SmsUrlTemplate template;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private double latencyMillis;
+        private double errorRate;
+        private int consecutiveFailures;
+        private CircuitState state = CircuitState.CLOSED;
+        private long stateSince = System.nanoTime();
+
+        private Route(SmsConfig.Gateway gateway, SmsUrlTemplate template) {
+            this.gateway = gateway;
+            this.template = template;
+        }
+
+        SmsConfig.Gateway getGateway() {
+            return gateway;
+        }
+
+        String getName() {
+            return gateway.getName();
+        }
+
+        String render(String recipients, String encodedMessage, String dltTemplateId) {
+            return template.render(recipients, encodedMessage, dltTemplateId);
+        }
+
+        /**
+         * Claim permission to call the gateway; an expired open circuit admits a
+         * single probe
+         */
+        boolean tryAcquire() {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                switch (state) {
+                    case CLOSED:
+                        return true;
+                    case OPEN:
+                    case HALF_OPEN:
+                        // A half-open probe that never reported back is replaced after open-duration
+                        if (now - stateSince < config.getOpenDuration().toNanos()) {
+                            return false;
+                        }
+                        state = CircuitState.HALF_OPEN;
+                        stateSince = now;
+                        log.info("SMS gateway {} circuit half-open, sending probe", gateway.getName());
+                        return true;
+                    default:
+                        return false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Record the outcome of a call made after {@link #tryAcquire()}
+         */
+        void record(NotificationResponse response, long elapsedNanos) {
+            boolean failed = isGatewayFailure(response);
+            double alpha = config.getEwmaAlpha();
+            double elapsedMillis = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            lock.lock();
+            try {
+                latencyMillis = latencyMillis == 0
+                        ? elapsedMillis
+                        : latencyMillis + alpha * (elapsedMillis - latencyMillis);
+                errorRate += alpha * ((failed ? 1 : 0) - errorRate);
+
+                if (!failed) {
+                    consecutiveFailures = 0;
+                    if (state != CircuitState.CLOSED) {
+                        log.info("SMS gateway {} recovered, circuit closed", gateway.getName());
+                        state = CircuitState.CLOSED;
+                        stateSince = System.nanoTime();
+                    }
+                    return;
+                }
+
+                consecutiveFailures++;
+                if (state == CircuitState.HALF_OPEN
+                        || (state == CircuitState.CLOSED && consecutiveFailures >= config.getFailureThreshold())) {
+                    log.warn("SMS gateway {} circuit opened after {} consecutive failures ({})",
+                            gateway.getName(), consecutiveFailures, response.getErrorCode());
+                    state = CircuitState.OPEN;
+                    stateSince = System.nanoTime();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isAvailable(long now) {
+            lock.lock();
+            try {
+                return state == CircuitState.CLOSED
+                        || now - stateSince >= config.getOpenDuration().toNanos();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double score() {
+            lock.lock();
+            try {
+                return Math.max(1.0, latencyMillis) * (1 + config.getErrorPenalty() * errorRate);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
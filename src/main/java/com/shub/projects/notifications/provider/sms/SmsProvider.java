@@ -1,35 +1,98 @@
 package com.shub.projects.notifications.provider.sms;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shub.projects.notifications.config.SmsConfig;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.exception.NotificationException;
 import com.shub.projects.notifications.provider.NotificationProvider;
-import lombok.RequiredArgsConstructor;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * SMS Notification Provider
  * 
- * Sends SMS notifications via configured SMS gateway
+ * Sends SMS notifications via the configured SMS gateways, choosing between
+ * them per call and failing over when one is down (see SmsGatewayRouter)
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "notification.sms", name = "enabled", havingValue = "true")
 public class SmsProvider implements NotificationProvider {
 
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    private static final int MIN_MATCH_DIGITS = 10;
+
     private final SmsConfig smsConfig;
-    private final WebClient.Builder webClientBuilder;
+    private final ObjectMapper objectMapper;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final SmsGatewayRouter router;
+
+    public SmsProvider(SmsConfig smsConfig,
+            WebClient.Builder webClientBuilder,
+            ObjectProvider<ObjectMapper> objectMapper) {
+        this.smsConfig = smsConfig;
+        this.objectMapper = objectMapper.getIfAvailable(ObjectMapper::new);
+        this.router = new SmsGatewayRouter(smsConfig);
+        if (router.getRoutes().isEmpty()) {
+            log.warn("SMS is enabled but no gateway URL is configured");
+        }
+
+        SmsConfig.Http http = smsConfig.getHttp();
+        this.connectionProvider = ConnectionProvider.builder("sms-gateway")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictionInterval())
+                .metrics(http.isMetricsEnabled())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .responseTimeout(http.getResponseTimeout())
+                .keepAlive(true);
+
+        this.webClient = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        log.info("SMS provider initialized with gateways {} and connection pool: maxConnections={}, "
+                + "pendingAcquireMaxCount={}",
+                router.getRoutes().stream().map(SmsGatewayRouter.Route::getName).collect(Collectors.toList()),
+                http.getMaxConnections(), http.getPendingAcquireMaxCount());
+    }
 
     @Override
     public String getType() {
@@ -43,161 +106,393 @@ public class SmsProvider implements NotificationProvider {
 
     @Override
     public NotificationResponse send(NotificationRequest request) {
-        log.info("Sending SMS to: {}", request.getRecipient());
+        return sendReactive(request).block();
+    }
+
+    @Override
+    public Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+        return Mono.defer(() -> {
+            log.info("Sending SMS to: {}", request.getRecipient());
 
-        try {
             // Encode message
             String encodedMessage = URLEncoder.encode(request.getMessage(), StandardCharsets.UTF_8);
 
-            // Build URL with parameters
-            String url = buildSmsUrl(request, encodedMessage);
+            // Build URL with parameters for each gateway tried
+            return sendVia(router.plan(1), 0, route -> route.render(
+                    request.getRecipient(), encodedMessage, resolveDltTemplateId(request, route)));
+        })
+                .onErrorResume(e -> {
+                    log.error("Failed to send SMS", e);
+                    return Mono.just(failure(e));
+                });
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Math.max(1, router.getMaxRecipients());
+    }
 
-            log.debug("SMS Gateway URL: {}", url);
+    /**
+     * Send several SMS, merging identical messages into multi-recipient gateway calls
+     * 
+     * Requests with the same text and DLT template are sent as one call with
+     * comma-separated numbers, up to {@code max-recipients-per-request} per call.
+     * Each recipient's response is taken from the gateway's per-recipient result.
+     */
+    @Override
+    public List<NotificationResponse> sendBatch(List<NotificationRequest> requests) {
+        return sendBatchAsync(requests).join();
+    }
 
-            // Send SMS via HTTP POST request (as per recent config change)
-            WebClient webClient = webClientBuilder.build();
-            String response = webClient.post()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            log.info("SMS Gateway Response: {}", response);
-
-            // Parse response to check for success/failure
-            boolean success = false;
-            String errorMessage = null;
-            String messageId = generateMessageId();
-
-            try {
-                // Determine success based on response content
-                // SMSGatewayHub returns JSON: {"ErrorCode":"000", "ErrorMessage":"Success",
-                // ...}
-                // or failure: {"ErrorCode":"006", "ErrorMessage":"error:Invalid template text",
-                // ...}
-                if (response != null && response.contains("ErrorCode")) {
-                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    Map<String, Object> map = mapper.readValue(response, Map.class);
-
-                    if (map.containsKey("ErrorMessage")) {
-                        String msg = map.get("ErrorMessage").toString();
-                        if ("Success".equalsIgnoreCase(msg)) {
-                            success = true;
-                        } else {
-                            success = false;
-                            errorMessage = msg;
-                        }
-                    } else if (map.containsKey("ErrorCode")) {
-                        String code = map.get("ErrorCode").toString();
-                        if ("000".equals(code) || "0".equals(code)) {
-                            success = true;
-                        } else {
-                            success = false;
-                            errorMessage = "ErrorCode: " + code;
-                        }
-                    } else {
-                        // Fallback check
-                        success = true;
-                    }
+    @Override
+    public CompletableFuture<List<NotificationResponse>> sendBatchAsync(List<NotificationRequest> requests) {
+        int maxRecipients = getMaxBatchSize();
+        NotificationResponse[] responses = new NotificationResponse[requests.size()];
+
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationRequest request = requests.get(i);
+            String key = maxRecipients > 1 && canCoalesce(request)
+                    ? request.getMessage() + '\u0000' + requestedDltTemplateId(request)
+                    : "#" + i;
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
 
-                    if (map.containsKey("JobId") && !ObjectUtils.isEmpty(map.get("JobId"))) {
-                        // Use JobId as messageId if available
-                        // But we already generated one, maybe append it?
-                        // Keeping internal messageId for consistency
+        List<Mono<Void>> calls = new ArrayList<>();
+        for (List<Integer> group : groups.values()) {
+            for (int start = 0; start < group.size(); start += maxRecipients) {
+                List<Integer> chunk = group.subList(start, Math.min(start + maxRecipients, group.size()));
+                Mono<List<NotificationResponse>> call = chunk.size() == 1
+                        ? sendReactive(requests.get(chunk.get(0))).map(Collections::singletonList)
+                        : sendCoalesced(chunk.stream().map(requests::get).collect(Collectors.toList()));
+                calls.add(call.doOnNext(results -> {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        responses[chunk.get(i)] = results.get(i);
                     }
-                } else if (response != null && response.toLowerCase().contains("success")) {
-                    // Fallback string check
-                    success = true;
+                }).then());
+            }
+        }
+
+        return Mono.when(calls)
+                .then(Mono.fromSupplier(() -> Arrays.asList(responses)))
+                .toFuture();
+    }
+
+    /**
+     * Send one message to several recipients in a single gateway call
+     * 
+     * Falls back to one call per recipient when no available gateway accepts
+     * that many recipients.
+     */
+    private Mono<List<NotificationResponse>> sendCoalesced(List<NotificationRequest> group) {
+        List<SmsGatewayRouter.Route> routes = router.plan(group.size());
+        if (routes.isEmpty()) {
+            return Flux.fromIterable(group)
+                    .flatMapSequential(this::sendReactive)
+                    .collectList();
+        }
+
+        return Mono.defer(() -> {
+            NotificationRequest first = group.get(0);
+            String recipients = group.stream()
+                    .map(NotificationRequest::getRecipient)
+                    .collect(Collectors.joining(","));
+            log.info("Sending SMS to {} recipients in one gateway call", group.size());
+
+            String encodedMessage = URLEncoder.encode(first.getMessage(), StandardCharsets.UTF_8);
+            return sendVia(routes, 0,
+                    route -> route.render(recipients, encodedMessage, resolveDltTemplateId(first, route)));
+        })
+                .onErrorResume(e -> {
+                    log.error("Failed to send SMS to {} recipients", group.size(), e);
+                    return Mono.just(failure(e));
+                })
+                .map(shared -> splitCoalesced(group, shared));
+    }
+
+    /**
+     * One response per recipient of a multi-recipient gateway call
+     * 
+     * A failed call fails every recipient. A successful one is attributed per
+     * recipient from the reply's MessageData list; recipients it leaves out are
+     * failed, and all are failed as unconfirmed when the reply has no such list.
+     */
+    private List<NotificationResponse> splitCoalesced(List<NotificationRequest> group, NotificationResponse shared) {
+        Map<String, String> messageIds = shared.isSuccess() ? recipientMessageIds(shared) : null;
+        if (shared.isSuccess() && messageIds == null) {
+            log.warn("SMS gateway reported no per-recipient result for {} recipients", group.size());
+        }
+
+        List<NotificationResponse> responses = new ArrayList<>(group.size());
+        for (NotificationRequest request : group) {
+            NotificationResponse.NotificationResponseBuilder response = NotificationResponse.builder()
+                    .providerResponse(shared.getProviderResponse())
+                    .timestamp(shared.getTimestamp());
+            if (!shared.isSuccess()) {
+                response.success(false)
+                        .status(shared.getStatus())
+                        .errorCode(shared.getErrorCode())
+                        .errorMessage(shared.getErrorMessage())
+                        .messageId(generateMessageId());
+            } else if (messageIds == null) {
+                response.success(false)
+                        .status("FAILED")
+                        .errorCode(ProviderErrors.UNCONFIRMED)
+                        .errorMessage("Gateway did not report a result for this recipient")
+                        .messageId(generateMessageId());
+            } else {
+                String messageId = findMessageId(messageIds, request.getRecipient());
+                if (messageId != null) {
+                    response.success(true)
+                            .status("SENT")
+                            .messageId(messageId);
                 } else {
-                    // Conservative fallback - if we got 200 OK but couldn't parse logic, assume
-                    // success?
-                    // Or let's just default to what we parsed.
-                    // If response is "error...", fail.
-                    if (response != null && response.toLowerCase().startsWith("error")) {
-                        success = false;
-                        errorMessage = response;
-                    } else {
-                        success = true; // Default success for unknown formats (legacy behavior)
-                    }
+                    response.success(false)
+                            .status("FAILED")
+                            .errorCode(ProviderErrors.RECIPIENT_REJECTED)
+                            .errorMessage("Recipient missing from gateway response")
+                            .messageId(generateMessageId());
                 }
-            } catch (Exception parseEx) {
-                log.warn("Failed to parse SMS response: {}", parseEx.getMessage());
-                // If we can't parse, but HTTP was 200, assume success but log warning
-                success = true;
             }
+            responses.add(response.build());
+        }
+        return responses;
+    }
 
-            return NotificationResponse.builder()
-                    .success(success)
-                    .status(success ? "SENT" : "FAILED")
-                    .errorMessage(errorMessage)
-                    .messageId(messageId)
-                    .providerResponse(Map.of("rawResponse", response != null ? response : ""))
-                    .timestamp(LocalDateTime.now())
-                    .build();
+    /**
+     * Number to message ID from the reply's MessageData list, keyed by digits only
+     * 
+     * @return Map, or null if the reply has no MessageData list
+     */
+    private Map<String, String> recipientMessageIds(NotificationResponse shared) {
+        Object raw = shared.getProviderResponse() instanceof Map
+                ? ((Map<?, ?>) shared.getProviderResponse()).get("rawResponse")
+                : null;
+        if (!(raw instanceof String) || !((String) raw).contains("MessageData")) {
+            return null;
+        }
 
+        try {
+            Object data = objectMapper.readValue((String) raw, MAP_TYPE).get("MessageData");
+            if (!(data instanceof List)) {
+                return null;
+            }
+            Map<String, String> messageIds = new HashMap<>();
+            for (Object item : (List<?>) data) {
+                if (item instanceof Map) {
+                    Object number = ((Map<?, ?>) item).get("Number");
+                    Object messageId = ((Map<?, ?>) item).get("MessageId");
+                    if (number != null && messageId != null) {
+                        messageIds.put(digits(number.toString()), messageId.toString());
+                    }
+                }
+            }
+            return messageIds;
         } catch (Exception e) {
-            log.error("Failed to send SMS", e);
-            return NotificationResponse.builder()
-                    .success(false)
-                    .status("FAILED")
-                    .errorMessage(e.getMessage())
-                    .timestamp(LocalDateTime.now())
-                    .build();
+            log.warn("Failed to parse SMS gateway MessageData: {}", e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Build SMS gateway URL by replacing template parameters
+     * Message ID for a recipient, matching with or without a country code prefix
      */
-    private String buildSmsUrl(NotificationRequest request, String encodedMessage) {
-        String url = smsConfig.getUrl();
-        String params = smsConfig.getParams();
-
-        // Build parameter map with all provider variations
-        Map<String, String> paramMap = new HashMap<>();
-        // MSG91 style
-        paramMap.put("authkey", smsConfig.getAuthKey());
-        paramMap.put("mobiles", request.getRecipient());
-        // SMSGatewayHub style
-        paramMap.put("APIKey", smsConfig.getAuthKey());
-        paramMap.put("apikey", smsConfig.getAuthKey());
-        paramMap.put("user", smsConfig.getUser());
-        paramMap.put("password", smsConfig.getPassword());
-        paramMap.put("number", request.getRecipient());
-        // Message variations
-        paramMap.put("message", encodedMessage);
-        paramMap.put("text", encodedMessage);
-        // Sender variations
-        paramMap.put("sender", smsConfig.getSenderId());
-        paramMap.put("senderid", smsConfig.getSenderId());
-        // Route and channel
-        paramMap.put("route", smsConfig.getRoute());
-        paramMap.put("channel", smsConfig.getChannel());
-        // DLT parameters (India)
-        paramMap.put("dltEntityId", smsConfig.getDltEntityId());
-        paramMap.put("dltTemplateId",
-                request.getMetadata() != null && request.getMetadata().containsKey("dltTemplateId")
-                        ? request.getMetadata().get("dltTemplateId").toString()
-                        : smsConfig.getDltTemplateId());
-
-        // Replace template variables in URL first (for providers that use path
-        // parameters)
-        String finalUrl = url;
-        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
-            if (!ObjectUtils.isEmpty(entry.getValue())) {
-                finalUrl = finalUrl.replace("{" + entry.getKey() + "}", entry.getValue());
+    private static String findMessageId(Map<String, String> messageIds, String recipient) {
+        String number = digits(recipient);
+        String messageId = messageIds.get(number);
+        if (messageId != null || number.length() < MIN_MATCH_DIGITS) {
+            return messageId;
+        }
+        for (Map.Entry<String, String> entry : messageIds.entrySet()) {
+            String reported = entry.getKey();
+            if (reported.length() >= MIN_MATCH_DIGITS && (reported.endsWith(number) || number.endsWith(reported))) {
+                return entry.getValue();
             }
         }
+        return null;
+    }
 
-        // Replace template variables in params
-        String finalParams = params;
-        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
-            if (!ObjectUtils.isEmpty(entry.getValue())) {
-                finalParams = finalParams.replace("{" + entry.getKey() + "}", entry.getValue());
+    private static String digits(String number) {
+        StringBuilder digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
             }
         }
+        return digits.toString();
+    }
+
+    /**
+     * Call the planned gateways in order until one is healthy
+     * 
+     * Moves to the next gateway only when the current one is unreachable,
+     * throttles or answers 5xx. A timeout or a broken connection is returned as
+     * is, since the message may already have gone out, and so is a message the
+     * gateway rejects.
+     */
+    private Mono<NotificationResponse> sendVia(List<SmsGatewayRouter.Route> routes, int index,
+            Function<SmsGatewayRouter.Route, String> url) {
+        if (index >= routes.size()) {
+            return Mono.error(new NotificationException("No SMS gateway available", ProviderErrors.UNAVAILABLE));
+        }
+
+        SmsGatewayRouter.Route route = routes.get(index);
+        if (!route.tryAcquire()) {
+            return sendVia(routes, index + 1, url);
+        }
+        return callGateway(route, url.apply(route))
+                .flatMap(response -> {
+                    if (index + 1 < routes.size() && SmsGatewayRouter.canFailOver(response)) {
+                        log.warn("SMS gateway {} failed ({}), failing over to {}",
+                                route.getName(), response.getErrorCode(), routes.get(index + 1).getName());
+                        return sendVia(routes, index + 1, url);
+                    }
+                    return Mono.just(response);
+                });
+    }
+
+    /**
+     * Post a rendered gateway URL over the shared connection pool
+     */
+    private Mono<NotificationResponse> callGateway(SmsGatewayRouter.Route route, String url) {
+        return Mono.defer(() -> {
+            log.debug("SMS Gateway {} URL: {}", route.getName(), url);
+            long start = System.nanoTime();
+
+            // Send SMS via HTTP POST request over the shared gateway connection pool
+            return webClient.post()
+                    .uri(url)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .defaultIfEmpty("")
+                    .map(body -> toNotificationResponse(route, body))
+                    .onErrorResume(e -> {
+                        log.warn("SMS gateway {} call failed: {}", route.getName(), e.toString());
+                        return Mono.just(failure(e));
+                    })
+                    .doOnNext(response -> route.record(response, System.nanoTime() - start));
+        });
+    }
+
+    private NotificationResponse failure(Throwable e) {
+        return NotificationResponse.builder()
+                .success(false)
+                .status("FAILED")
+                .errorCode(ProviderErrors.codeOf(e))
+                .errorMessage(e.getMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private boolean canCoalesce(NotificationRequest request) {
+        return request.getMessage() != null
+                && !ObjectUtils.isEmpty(request.getRecipient())
+                && request.getRecipient().indexOf(',') < 0;
+    }
+
+    /**
+     * Map the raw gateway response body to a notification response
+     */
+    private NotificationResponse toNotificationResponse(SmsGatewayRouter.Route route, String response) {
+        log.info("SMS Gateway {} Response: {}", route.getName(), response);
+
+        // Parse response to check for success/failure
+        boolean success = false;
+        String errorMessage = null;
+        String errorCode = null;
+        String messageId = generateMessageId();
+
+        try {
+            // Determine success based on response content
+            // SMSGatewayHub returns JSON: {"ErrorCode":"000", "ErrorMessage":"Success",
+            // ...}
+            // or failure: {"ErrorCode":"006", "ErrorMessage":"error:Invalid template text",
+            // ...}
+            if (response != null && response.contains("ErrorCode")) {
+                Map<String, Object> map = objectMapper.readValue(response, MAP_TYPE);
+
+                if (map.get("ErrorCode") != null) {
+                    errorCode = ProviderErrors.GATEWAY_PREFIX + map.get("ErrorCode");
+                }
+
+                if (map.containsKey("ErrorMessage")) {
+                    String msg = map.get("ErrorMessage").toString();
+                    if ("Success".equalsIgnoreCase(msg)) {
+                        success = true;
+                    } else {
+                        success = false;
+                        errorMessage = msg;
+                    }
+                } else if (map.containsKey("ErrorCode")) {
+                    String code = map.get("ErrorCode").toString();
+                    if ("000".equals(code) || "0".equals(code)) {
+                        success = true;
+                    } else {
+                        success = false;
+                        errorMessage = "ErrorCode: " + code;
+                    }
+                } else {
+                    // Fallback check
+                    success = true;
+                }
+
+                if (map.containsKey("JobId") && !ObjectUtils.isEmpty(map.get("JobId"))) {
+                    // Use JobId as messageId if available
+                    // But we already generated one, maybe append it?
+                    // Keeping internal messageId for consistency
+                }
+            } else if (response != null && response.toLowerCase().contains("success")) {
+                // Fallback string check
+                success = true;
+            } else {
+                // Conservative fallback - if we got 200 OK but couldn't parse logic, assume
+                // success?
+                // Or let's just default to what we parsed.
+                // If response is "error...", fail.
+                if (response != null && response.toLowerCase().startsWith("error")) {
+                    success = false;
+                    errorMessage = response;
+                } else {
+                    success = true; // Default success for unknown formats (legacy behavior)
+                }
+            }
+        } catch (Exception parseEx) {
+            log.warn("Failed to parse SMS response: {}", parseEx.getMessage());
+            // If we can't parse, but HTTP was 200, assume success but log warning
+            success = true;
+        }
+
+        return NotificationResponse.builder()
+                .success(success)
+                .status(success ? "SENT" : "FAILED")
+                .errorMessage(errorMessage)
+                .errorCode(success ? null : errorCode)
+                .messageId(messageId)
+                .providerResponse(Map.of(
+                        "rawResponse", response != null ? response : "",
+                        "gateway", route.getName()))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        connectionProvider.dispose();
+    }
+
+    /**
+     * DLT template ID from request metadata, or the gateway's default
+     */
+    private String resolveDltTemplateId(NotificationRequest request, SmsGatewayRouter.Route route) {
+        String requested = requestedDltTemplateId(request);
+        return requested != null ? requested : route.getGateway().getDltTemplateId();
+    }
 
-        return finalUrl + (params.startsWith("?") ? "" : "?") + finalParams;
+    private String requestedDltTemplateId(NotificationRequest request) {
+        return request.getMetadata() != null && request.getMetadata().containsKey("dltTemplateId")
+                ? request.getMetadata().get("dltTemplateId").toString()
+                : null;
     }
 
     /**
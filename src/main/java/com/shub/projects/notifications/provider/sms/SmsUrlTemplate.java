@@ -0,0 +1,200 @@
+package com.shub.projects.notifications.provider.sms;
+
+import com.shub.projects.notifications.config.SmsConfig;
+import org.springframework.util.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Precompiled SMS gateway URL template
+ *
+ * The configured {@code url} and {@code params} are parsed once into literal
+ * and placeholder segments. Placeholders backed by static configuration
+ * (credentials, sender, route...) are folded into the literals at compile
+ * time, so rendering a message only fills the recipient, message and DLT
+ * template slots in a single pass into an exactly sized buffer.
+ *
+ * Rendering matches the previous string-replace behaviour: placeholders with
+ * an empty value and unknown placeholders are left in the URL as written.
+ */
+final class SmsUrlTemplate {
+
+    /**
+     * Placeholders whose value comes from the configuration
+     */
+    private static final Map<String, Function<SmsConfig.Gateway, String>> STATIC_FIELDS = Map.ofEntries(
+            // MSG91 style
+            Map.entry("authkey", SmsConfig.Gateway::getAuthKey),
+            // SMSGatewayHub style
+            Map.entry("APIKey", SmsConfig.Gateway::getAuthKey),
+            Map.entry("apikey", SmsConfig.Gateway::getAuthKey),
+            Map.entry("user", SmsConfig.Gateway::getUser),
+            Map.entry("password", SmsConfig.Gateway::getPassword),
+            // Sender variations
+            Map.entry("sender", SmsConfig.Gateway::getSenderId),
+            Map.entry("senderid", SmsConfig.Gateway::getSenderId),
+            // Route and channel
+            Map.entry("route", SmsConfig.Gateway::getRoute),
+            Map.entry("channel", SmsConfig.Gateway::getChannel),
+            // DLT parameters (India)
+            Map.entry("dltEntityId", SmsConfig.Gateway::getDltEntityId));
+
+    /**
+     * Placeholders whose value changes per message
+     */
+    private static final Map<String, Field> MESSAGE_FIELDS = Map.of(
+            "mobiles", Field.RECIPIENTS,
+            "number", Field.RECIPIENTS,
+            "message", Field.MESSAGE,
+            "text", Field.MESSAGE,
+            "dltTemplateId", Field.DLT_TEMPLATE_ID);
+
+    private enum Field {
+        RECIPIENTS, MESSAGE, DLT_TEMPLATE_ID
+    }
+
+    private final Segment[] segments;
+    private final int literalLength;
+    private final Set<String> unknownPlaceholders;
+
+    private SmsUrlTemplate(Segment[] segments, int literalLength, Set<String> unknownPlaceholders) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+        this.unknownPlaceholders = unknownPlaceholders;
+    }
+
+    /**
+     * Compile the URL and parameter templates of a gateway
+     */
+    static SmsUrlTemplate compile(SmsConfig.Gateway config) {
+        String params = config.getParams() != null ? config.getParams() : "";
+        String template = config.getUrl()
+                + (params.isEmpty() || params.startsWith("?") ? "" : "?")
+                + params;
+
+        List<Segment> segments = new ArrayList<>();
+        Set<String> unknown = new LinkedHashSet<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+
+        int position = 0;
+        while (position < template.length()) {
+            int close = template.indexOf('}', position);
+            int open = close < 0 ? -1 : template.lastIndexOf('{', close);
+            if (open < position) {
+                literal.append(template, position, close < 0 ? template.length() : close + 1);
+                position = close < 0 ? template.length() : close + 1;
+                continue;
+            }
+
+            literal.append(template, position, open);
+            String name = template.substring(open + 1, close);
+            String token = template.substring(open, close + 1);
+            position = close + 1;
+
+            Field field = MESSAGE_FIELDS.get(name);
+            if (field != null) {
+                if (literal.length() > 0) {
+                    segments.add(Segment.literal(literal.toString()));
+                    literalLength += literal.length();
+                    literal.setLength(0);
+                }
+                segments.add(Segment.field(field, token));
+                continue;
+            }
+
+            Function<SmsConfig.Gateway, String> staticField = STATIC_FIELDS.get(name);
+            if (staticField == null) {
+                unknown.add(name);
+                literal.append(token);
+            } else {
+                String value = staticField.apply(config);
+                literal.append(ObjectUtils.isEmpty(value) ? token : value);
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(Segment.literal(literal.toString()));
+            literalLength += literal.length();
+        }
+
+        return new SmsUrlTemplate(segments.toArray(new Segment[0]), literalLength,
+                Collections.unmodifiableSet(unknown));
+    }
+
+    /**
+     * Placeholders in the template that no configuration or message field fills
+     */
+    Set<String> getUnknownPlaceholders() {
+        return unknownPlaceholders;
+    }
+
+    /**
+     * Render the gateway URL for one message
+     *
+     * @param recipients     Recipient number, or comma-separated numbers
+     * @param encodedMessage URL-encoded message text
+     * @param dltTemplateId  DLT template ID for the message
+     */
+    String render(String recipients, String encodedMessage, String dltTemplateId) {
+        int length = literalLength;
+        for (Segment segment : segments) {
+            if (segment.field != null) {
+                length += valueOrToken(segment, recipients, encodedMessage, dltTemplateId).length();
+            }
+        }
+
+        StringBuilder url = new StringBuilder(length);
+        for (Segment segment : segments) {
+            url.append(segment.field == null
+                    ? segment.text
+                    : valueOrToken(segment, recipients, encodedMessage, dltTemplateId));
+        }
+        return url.toString();
+    }
+
+    private static String valueOrToken(Segment segment, String recipients, String encodedMessage,
+            String dltTemplateId) {
+        String value;
+        switch (segment.field) {
+            case RECIPIENTS:
+                value = recipients;
+                break;
+            case MESSAGE:
+                value = encodedMessage;
+                break;
+            case DLT_TEMPLATE_ID:
+            default:
+                value = dltTemplateId;
+                break;
+        }
+        return ObjectUtils.isEmpty(value) ? segment.text : value;
+    }
+
+    /**
+     * Literal text, or a per-message field with its original token as fallback
+     */
+    private static final class Segment {
+
+        private final String text;
+        private final Field field;
+
+        private Segment(String text, Field field) {
+            this.text = text;
+            this.field = field;
+        }
+
+        static Segment literal(String text) {
+            return new Segment(text, null);
+        }
+
+        static Segment field(Field field, String token) {
+            return new Segment(token, field);
+        }
+    }
+}
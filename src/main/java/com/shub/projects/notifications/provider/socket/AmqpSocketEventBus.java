@@ -0,0 +1,198 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shub.projects.notifications.config.SocketConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Socket event bus over a RabbitMQ fanout exchange
+ *
+ * Every node binds its own exclusive, auto-delete queue to the exchange.
+ * Published events are collected for {@code flush-interval} (or until
+ * {@code max-batch-size}) and sent as one JSON array message, so a burst of
+ * room events costs one broker round trip. Messages carry the publishing node's
+ * ID and each node ignores its own, having already delivered locally.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.socket.bus", name = "type", havingValue = "amqp")
+public class AmqpSocketEventBus implements SocketEventBus {
+
+    private static final String NODE_HEADER = "x-notification-node";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SocketConfig.Bus config;
+    private final RabbitTemplate rabbitTemplate;
+    private final SimpleMessageListenerContainer container;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentLinkedQueue<SocketEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+    private volatile Consumer<SocketEvent> handler;
+
+    public AmqpSocketEventBus(SocketConfig socketConfig, ConnectionFactory connectionFactory,
+            RabbitTemplate rabbitTemplate, RabbitAdmin rabbitAdmin) {
+        this.config = socketConfig.getBus();
+        this.rabbitTemplate = rabbitTemplate;
+
+        FanoutExchange exchange = new FanoutExchange(config.getExchange(), true, false);
+        Queue queue = new AnonymousQueue();
+        rabbitAdmin.declareExchange(exchange);
+        rabbitAdmin.declareQueue(queue);
+        rabbitAdmin.declareBinding(BindingBuilder.bind(queue).to(exchange));
+
+        this.container = new SimpleMessageListenerContainer(connectionFactory);
+        this.container.setQueues(queue);
+        this.container.setMessageListener(this::receive);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("socket-bus-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = config.getFlushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+
+        log.info("AMQP socket event bus started: node={}, exchange={}", nodeId, config.getExchange());
+    }
+
+    @Override
+    public void publish(SocketEvent event) {
+        pending.add(event);
+        if (pendingCount.incrementAndGet() == config.getMaxBatchSize()) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<SocketEvent> handler) {
+        this.handler = handler;
+        if (!container.isRunning()) {
+            container.start();
+        }
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        container.stop();
+    }
+
+    private void flush() {
+        List<SocketEvent> batch = new ArrayList<>();
+        SocketEvent event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+            if (batch.size() == config.getMaxBatchSize()) {
+                send(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<SocketEvent> batch) {
+        pendingCount.addAndGet(-batch.size());
+        try {
+            MessageProperties properties = new MessageProperties();
+            properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            properties.setHeader(NODE_HEADER, nodeId);
+            rabbitTemplate.send(config.getExchange(), "", new Message(encode(batch), properties));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to publish {} socket events to the bus", batch.size(), e);
+        }
+    }
+
+    private void receive(Message message) {
+        Object origin = message.getMessageProperties().getHeader(NODE_HEADER);
+        Consumer<SocketEvent> target = handler;
+        if (nodeId.equals(origin) || target == null) {
+            return;
+        }
+        try {
+            for (JsonNode node : MAPPER.readTree(message.getBody())) {
+                JsonNode data = node.get("data");
+                target.accept(new SocketEvent(
+                        SocketEvent.Scope.valueOf(node.get("scope").asText()),
+                        text(node, "target"),
+                        text(node, "event"),
+                        data != null ? SocketPayload.ofJson(data.toString()) : null,
+                        text(node, "id")));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to deliver socket events from the bus", e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    /**
+     * [{"scope":..,"target":..,"event":..,"id":..,"data":<payload>}, ...] with
+     * payloads copied verbatim; control messages have no data
+     */
+    private static byte[] encode(List<SocketEvent> batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (SocketEvent event : batch) {
+                generator.writeStartObject();
+                generator.writeStringField("scope", event.getScope().name());
+                generator.writeStringField("target", event.getTarget());
+                generator.writeStringField("event", event.getEventName());
+                if (event.getId() != null) {
+                    generator.writeStringField("id", event.getId());
+                }
+                if (event.getPayload() != null) {
+                    generator.writeFieldName("data");
+                    generator.writeRawValue(event.getPayload().getJson());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        return out.toByteArray();
+    }
+}
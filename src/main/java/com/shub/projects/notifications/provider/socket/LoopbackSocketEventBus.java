@@ -0,0 +1,60 @@
+package com.shub.projects.notifications.provider.socket;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory event bus
+ *
+ * The default bean is a single node with no peers, so publishing is a no-op.
+ * Buses created with a shared {@link Hub} deliver to each other synchronously,
+ * which lets several providers simulate a cluster inside one JVM.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification.socket.bus", name = "type", havingValue = "local", matchIfMissing = true)
+public class LoopbackSocketEventBus implements SocketEventBus {
+
+    private final Hub hub;
+    private volatile Consumer<SocketEvent> handler;
+
+    public LoopbackSocketEventBus() {
+        this(new Hub());
+    }
+
+    public LoopbackSocketEventBus(Hub hub) {
+        this.hub = hub;
+        hub.members.add(this);
+    }
+
+    @Override
+    public void publish(SocketEvent event) {
+        for (LoopbackSocketEventBus member : hub.members) {
+            Consumer<SocketEvent> memberHandler = member.handler;
+            if (member != this && memberHandler != null) {
+                memberHandler.accept(event);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<SocketEvent> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return hub.members.size() > 1;
+    }
+
+    /**
+     * Set of buses that see each other's events
+     */
+    public static final class Hub {
+
+        private final List<LoopbackSocketEventBus> members = new CopyOnWriteArrayList<>();
+    }
+}
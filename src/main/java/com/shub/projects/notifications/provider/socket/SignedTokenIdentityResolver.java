@@ -0,0 +1,126 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.corundumstudio.socketio.HandshakeData;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Resolves the user from a token signed with a shared secret
+ *
+ * Tokens have the form {@code <userId>.<expiresEpochSeconds>.<signature>},
+ * where the signature is the unpadded base64url HMAC-SHA256 of
+ * {@code <userId>.<expiresEpochSeconds>}. Whatever authenticates the user mints
+ * them with {@link #sign}. The token is read from the Socket.IO {@code auth}
+ * payload ({@code {token: ...}}), then the configured query parameter, then an
+ * {@code Authorization: Bearer} header. Missing, expired or forged tokens give
+ * an anonymous connection.
+ */
+@Slf4j
+public class SignedTokenIdentityResolver implements SocketIdentityResolver {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String BEARER = "Bearer ";
+
+    private final SecretKeySpec key;
+    private final String tokenParam;
+    private final Clock clock;
+
+    public SignedTokenIdentityResolver(String secret, String tokenParam) {
+        this(secret, tokenParam, Clock.systemUTC());
+    }
+
+    SignedTokenIdentityResolver(String secret, String tokenParam, Clock clock) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.tokenParam = tokenParam;
+        this.clock = clock;
+    }
+
+    /**
+     * Mint a token for a user
+     *
+     * @param userId    User ID; may contain dots
+     * @param expiresAt Time after which the token is refused
+     * @return Token to hand to the client
+     */
+    public String sign(String userId, Instant expiresAt) {
+        String claims = userId + '.' + expiresAt.getEpochSecond();
+        return claims + '.' + signature(claims);
+    }
+
+    @Override
+    public String resolveUserId(HandshakeData handshake) {
+        String token = findToken(handshake);
+        if (token == null) {
+            return null;
+        }
+
+        int signatureDot = token.lastIndexOf('.');
+        int expiryDot = signatureDot > 0 ? token.lastIndexOf('.', signatureDot - 1) : -1;
+        if (expiryDot <= 0) {
+            log.debug("Rejected malformed socket token");
+            return null;
+        }
+
+        String claims = token.substring(0, signatureDot);
+        byte[] expected = signature(claims).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(signatureDot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            log.warn("Rejected socket token with invalid signature from {}", handshake.getAddress());
+            return null;
+        }
+
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(token.substring(expiryDot + 1, signatureDot));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (clock.instant().getEpochSecond() >= expiresAt) {
+            log.debug("Rejected expired socket token");
+            return null;
+        }
+        return token.substring(0, expiryDot);
+    }
+
+    private String findToken(HandshakeData handshake) {
+        Object auth = handshake.getAuthToken();
+        if (auth instanceof Map && ((Map<?, ?>) auth).get("token") != null) {
+            return ((Map<?, ?>) auth).get("token").toString();
+        }
+        if (auth instanceof String && !((String) auth).isEmpty()) {
+            return (String) auth;
+        }
+
+        String token = handshake.getSingleUrlParam(tokenParam);
+        if (token != null && !token.isEmpty()) {
+            return token;
+        }
+
+        String authorization = handshake.getHttpHeaders() != null
+                ? handshake.getHttpHeaders().get("Authorization")
+                : null;
+        return authorization != null && authorization.startsWith(BEARER)
+                ? authorization.substring(BEARER.length())
+                : null;
+    }
+
+    private String signature(String claims) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(claims.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
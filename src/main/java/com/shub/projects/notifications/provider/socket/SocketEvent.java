@@ -0,0 +1,65 @@
+package com.shub.projects.notifications.provider.socket;
+
+/**
+ * Socket notification addressed to clients that may live on any node
+ */
+public final class SocketEvent {
+
+    /**
+     * ROOM, BROADCAST and USER carry a notification. DELIVERED and CONNECTED are
+     * control messages between nodes: a node reports that it delivered the USER
+     * event with the given ID, or that a user has opened a session.
+     */
+    public enum Scope {
+        ROOM, BROADCAST, USER, DELIVERED, CONNECTED
+    }
+
+    private final Scope scope;
+    private final String target;
+    private final String eventName;
+    private final SocketPayload payload;
+    private final String id;
+
+    /**
+     * @param scope     Kind of audience
+     * @param target    Room name for ROOM, user ID for USER and CONNECTED, null
+     *                  otherwise
+     * @param eventName Socket.IO event name
+     * @param payload   Encoded event argument
+     */
+    public SocketEvent(Scope scope, String target, String eventName, SocketPayload payload) {
+        this(scope, target, eventName, payload, null);
+    }
+
+    /**
+     * @param id Delivery ID of a USER event whose publisher waits for a
+     *           DELIVERED report, or of the event a DELIVERED report confirms
+     */
+    public SocketEvent(Scope scope, String target, String eventName, SocketPayload payload, String id) {
+        this.scope = scope;
+        this.target = target;
+        this.eventName = eventName;
+        this.payload = payload;
+        this.id = id;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public SocketPayload getPayload() {
+        return payload;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
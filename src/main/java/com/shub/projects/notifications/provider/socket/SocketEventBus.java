@@ -0,0 +1,29 @@
+package com.shub.projects.notifications.provider.socket;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries socket events between notification-center nodes
+ *
+ * A node delivers every event to its own sessions first and publishes it on
+ * the bus; each other node receives it and delivers it to its local sessions
+ * only. Selected with notification.socket.bus.type.
+ */
+public interface SocketEventBus {
+
+    /**
+     * Publish an event for the other nodes; must not block on the network
+     */
+    void publish(SocketEvent event);
+
+    /**
+     * Register the handler that delivers events published by other nodes
+     */
+    void subscribe(Consumer<SocketEvent> handler);
+
+    /**
+     * Whether other nodes may hold sessions, so a user without a local session
+     * is not necessarily offline
+     */
+    boolean isDistributed();
+}
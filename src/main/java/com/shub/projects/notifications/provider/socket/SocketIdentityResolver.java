@@ -0,0 +1,20 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.corundumstudio.socketio.HandshakeData;
+
+/**
+ * Resolves the user behind a Socket.IO connection
+ *
+ * The default implementation verifies a {@link SignedTokenIdentityResolver}
+ * token. Declare a bean of this type to authenticate users another way, e.g.
+ * against a session store or an OAuth provider.
+ */
+@FunctionalInterface
+public interface SocketIdentityResolver {
+
+    /**
+     * @param handshake Handshake of the connecting client
+     * @return User ID, or null for an anonymous connection
+     */
+    String resolveUserId(HandshakeData handshake);
+}
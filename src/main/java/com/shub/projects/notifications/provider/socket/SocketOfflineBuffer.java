@@ -0,0 +1,247 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.shub.projects.notifications.config.SocketConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds socket notifications for users that have no live session
+ *
+ * Each user gets a bounded ring: once it holds {@code per-recipient-capacity}
+ * events the oldest one is dropped. Events expire after {@code ttl}. Across all
+ * users at most {@code max-total} events are kept; over the cap the globally
+ * oldest events are evicted first. Everything still buffered is replayed, in
+ * order, to the first session the user opens.
+ *
+ * Rings are only touched inside ConcurrentHashMap compute calls, so each user
+ * is updated under its own hash bin lock. Global eviction just flags entries
+ * as dead; rings discard dead entries lazily.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification.socket", name = "enabled", havingValue = "true")
+public class SocketOfflineBuffer {
+
+    private final SocketConfig.OfflineBuffer config;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final ScheduledExecutorService sweeper;
+
+    public SocketOfflineBuffer(SocketConfig socketConfig, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.config = socketConfig.getOffline();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("socket-offline-sweeper-");
+        threadFactory.setDaemon(true);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = Math.max(1000, config.getTtl().toMillis() / 4);
+        this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+
+        meterRegistry.ifAvailable(this::bindMetrics);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Buffer an event for a user until one of their sessions connects
+     */
+    public void add(String userId, String eventName, SocketPayload payload) {
+        Entry entry = new Entry(eventName, payload, System.nanoTime() + config.getTtl().toNanos());
+        rings.compute(userId, (key, ring) -> {
+            Ring target = ring != null ? ring : new Ring();
+            target.add(entry);
+            return target;
+        });
+        buffered.incrementAndGet();
+        insertionOrder.add(entry);
+
+        while (buffered.get() > config.getMaxTotal()) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (kill(oldest)) {
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove and return everything still buffered for a user, oldest first
+     */
+    public List<Buffered> drain(String userId) {
+        Ring ring = rings.remove(userId);
+        if (ring == null) {
+            return Collections.emptyList();
+        }
+
+        long now = System.nanoTime();
+        List<Buffered> events = new ArrayList<>(ring.entries.size());
+        for (Entry entry : ring.entries) {
+            if (!kill(entry)) {
+                continue;
+            }
+            if (entry.expiresAt - now < 0) {
+                expired.incrementAndGet();
+            } else {
+                events.add(new Buffered(entry.eventName, entry.payload));
+            }
+        }
+        replayed.addAndGet(events.size());
+        return events;
+    }
+
+    public int getBufferedCount() {
+        return buffered.get();
+    }
+
+    public int getRecipientCount() {
+        return rings.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Drop expired entries and release rings and queue nodes of dead entries
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        Entry head;
+        while ((head = insertionOrder.peek()) != null && (head.dead.get() || head.expiresAt - now < 0)) {
+            insertionOrder.poll();
+            if (kill(head)) {
+                expired.incrementAndGet();
+            }
+        }
+        for (String userId : rings.keySet()) {
+            rings.computeIfPresent(userId, (key, ring) -> ring.purge(now) ? null : ring);
+        }
+    }
+
+    /**
+     * Mark an entry as removed; only the first caller wins and adjusts the count
+     */
+    private boolean kill(Entry entry) {
+        if (entry.dead.compareAndSet(false, true)) {
+            buffered.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        Gauge.builder("notification.socket.offline.buffered", buffered, AtomicInteger::get)
+                .description("Socket events held for disconnected users")
+                .register(registry);
+        Gauge.builder("notification.socket.offline.recipients", rings, Map::size)
+                .description("Users with buffered socket events")
+                .register(registry);
+        Gauge.builder("notification.socket.offline.capacity", config, SocketConfig.OfflineBuffer::getMaxTotal)
+                .description("Maximum socket events held across all users")
+                .register(registry);
+        FunctionCounter.builder("notification.socket.offline.evicted", evicted, AtomicLong::get)
+                .description("Buffered socket events evicted by the global cap")
+                .register(registry);
+        FunctionCounter.builder("notification.socket.offline.expired", expired, AtomicLong::get)
+                .description("Buffered socket events dropped after their TTL")
+                .register(registry);
+        FunctionCounter.builder("notification.socket.offline.replayed", replayed, AtomicLong::get)
+                .description("Buffered socket events replayed on reconnect")
+                .register(registry);
+    }
+
+    /**
+     * Event handed back for replay
+     */
+    public static final class Buffered {
+
+        private final String eventName;
+        private final SocketPayload payload;
+
+        Buffered(String eventName, SocketPayload payload) {
+            this.eventName = eventName;
+            this.payload = payload;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        public SocketPayload getPayload() {
+            return payload;
+        }
+    }
+
+    private final class Ring {
+
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        void add(Entry entry) {
+            purge(System.nanoTime());
+            while (!entries.isEmpty() && entries.size() >= config.getPerRecipientCapacity()) {
+                if (kill(entries.pollFirst())) {
+                    evicted.incrementAndGet();
+                }
+            }
+            entries.addLast(entry);
+        }
+
+        /**
+         * Drop dead and expired entries from the head
+         *
+         * @return true if the ring is now empty
+         */
+        boolean purge(long now) {
+            Entry head;
+            while ((head = entries.peekFirst()) != null && (head.dead.get() || head.expiresAt - now < 0)) {
+                entries.pollFirst();
+                if (kill(head)) {
+                    expired.incrementAndGet();
+                }
+            }
+            return entries.isEmpty();
+        }
+    }
+
+    private static final class Entry {
+
+        private final String eventName;
+        private final SocketPayload payload;
+        private final long expiresAt;
+        private final AtomicBoolean dead = new AtomicBoolean();
+
+        Entry(String eventName, SocketPayload payload, long expiresAt) {
+            this.eventName = eventName;
+            this.payload = payload;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
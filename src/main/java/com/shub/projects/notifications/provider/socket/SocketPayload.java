@@ -0,0 +1,102 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shub.projects.notifications.exception.NotificationException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Socket event argument serialized to JSON once
+ *
+ * netty-socketio encodes an event's arguments separately for every client it
+ * is written to. A payload wraps the already serialized JSON, and the module
+ * from {@link #jacksonModule()} (registered on the Socket.IO server's
+ * JsonSupport) writes those cached UTF-8 bytes verbatim, so a room or broadcast
+ * send only copies bytes per subscriber instead of re-serializing the object.
+ */
+public final class SocketPayload {
+
+    /**
+     * Same inclusion rules as netty-socketio's own JacksonJsonSupport; java.time
+     * values (a request's sendAt) are written as ISO-8601 strings
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final SerializedString json;
+
+    private SocketPayload(String json) {
+        this.json = new SerializedString(json);
+    }
+
+    /**
+     * Serialize an event argument
+     */
+    public static SocketPayload of(Object value) {
+        try {
+            return new SocketPayload(MAPPER.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new NotificationException("Failed to serialize socket payload", e);
+        }
+    }
+
+    /**
+     * Wrap JSON that is already serialized, e.g. received from another node
+     */
+    static SocketPayload ofJson(String json) {
+        return new SocketPayload(json);
+    }
+
+    /**
+     * Combine several events into one batch argument:
+     * {@code [{"event":"name","data":...},...]}
+     */
+    static SocketPayload batch(List<String> events, List<SocketPayload> payloads) {
+        int length = 2;
+        for (int i = 0; i < payloads.size(); i++) {
+            length += events.get(i).length() + payloads.get(i).getJson().length() + 24;
+        }
+        StringBuilder json = new StringBuilder(length).append('[');
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"event\":\"");
+            json.append(new String(new SerializedString(events.get(i)).asQuotedChars()));
+            json.append("\",\"data\":").append(payloads.get(i).getJson()).append('}');
+        }
+        return new SocketPayload(json.append(']').toString());
+    }
+
+    public String getJson() {
+        return json.getValue();
+    }
+
+    /**
+     * Jackson module that writes {@link SocketPayload} values as raw JSON
+     */
+    public static Module jacksonModule() {
+        SimpleModule module = new SimpleModule("SocketPayloadModule");
+        module.addSerializer(SocketPayload.class, new StdSerializer<SocketPayload>(SocketPayload.class) {
+            @Override
+            public void serialize(SocketPayload payload, JsonGenerator generator, SerializerProvider provider)
+                    throws IOException {
+                generator.writeRawValue(payload.json);
+            }
+        });
+        return module;
+    }
+}
@@ -1,33 +1,83 @@
 package com.shub.projects.notifications.provider.socket;
 
+import com.corundumstudio.socketio.SocketIOClient;
 import com.corundumstudio.socketio.SocketIOServer;
 import com.shub.projects.notifications.config.SocketConfig;
 import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.exception.NotificationException;
 import com.shub.projects.notifications.provider.NotificationProvider;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Socket.IO Notification Provider
  * 
  * Broadcasts notifications to connected Socket.IO clients
+ *
+ * Each notification is serialized once into a {@link SocketPayload} that is
+ * reused for every subscriber. With notification.socket.batching enabled, room
+ * and broadcast events are coalesced by a {@link SocketRoomBatcher}.
+ *
+ * With a distributed bus, a user:<id> event that found no local session is
+ * published with a delivery ID. A node that delivers it reports back; if none
+ * does within {@code bus.delivery-timeout}, the publishing node buffers the
+ * event. A node where the user opens a session announces it, and nodes holding
+ * buffered events for that user publish them again.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "notification.socket", name = "enabled", havingValue = "true")
 public class SocketProvider implements NotificationProvider {
 
     private static final String ROOM_PREFIX = "room-";
+    private static final String USER_PREFIX = "user:";
     private static final String DEFAULT_EVENT = "notification";
+    private static final String BROADCAST_TARGET = "*";
+
+    private enum Delivery {
+        SENT, BUFFERED, PUBLISHED
+    }
 
     private final SocketIOServer socketServer;
     private final SocketConfig socketConfig;
+    private final SocketSessionRegistry sessionRegistry;
+    private final SocketOfflineBuffer offlineBuffer;
+    private final SocketEventBus eventBus;
+    private final SocketRoomBatcher batcher;
+    private final Map<String, Unconfirmed> unconfirmed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService deliveryTimer;
+
+    public SocketProvider(SocketIOServer socketServer, SocketConfig socketConfig,
+            SocketSessionRegistry sessionRegistry, SocketOfflineBuffer offlineBuffer, SocketEventBus eventBus) {
+        this.socketServer = socketServer;
+        this.socketConfig = socketConfig;
+        this.sessionRegistry = sessionRegistry;
+        this.offlineBuffer = offlineBuffer;
+        this.eventBus = eventBus;
+        this.batcher = socketConfig.getBatching().isEnabled()
+                ? new SocketRoomBatcher(socketConfig.getBatching(), this::emit)
+                : null;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("socket-delivery-");
+        threadFactory.setDaemon(true);
+        this.deliveryTimer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        // Runs after the SocketConfig listener has registered the session's user
+        socketServer.addConnectListener(this::replayBuffered);
+        eventBus.subscribe(this::deliverFromBus);
+    }
 
     @Override
     public String getType() {
@@ -51,6 +101,18 @@ public class SocketProvider implements NotificationProvider {
                 // Send to specific room
                 String roomId = request.getRecipient().substring(5); // Remove "room:" prefix
                 sendToRoom(roomId, eventName, request);
+            } else if (request.getRecipient().startsWith(USER_PREFIX)) {
+                // Send to every live session of a user, or hold it until they reconnect
+                Delivery delivery = sendToUser(request.getRecipient().substring(USER_PREFIX.length()), eventName,
+                        request);
+                if (delivery != Delivery.SENT) {
+                    return NotificationResponse.builder()
+                            .success(true)
+                            .messageId(generateMessageId())
+                            .status(delivery.name())
+                            .timestamp(LocalDateTime.now())
+                            .build();
+                }
             } else if ("broadcast".equalsIgnoreCase(request.getRecipient()) ||
                     "all".equalsIgnoreCase(request.getRecipient())) {
                 // Broadcast to all connected clients
@@ -83,8 +145,9 @@ public class SocketProvider implements NotificationProvider {
      */
     private void sendToRoom(String roomId, String eventName, NotificationRequest request) {
         log.debug("Sending to room: {}", roomId);
-        socketServer.getRoomOperations(ROOM_PREFIX + roomId)
-                .sendEvent(eventName, buildSocketMessage(request));
+        SocketPayload payload = SocketPayload.of(buildSocketMessage(request));
+        publish(ROOM_PREFIX + roomId, eventName, payload);
+        eventBus.publish(new SocketEvent(SocketEvent.Scope.ROOM, ROOM_PREFIX + roomId, eventName, payload));
     }
 
     /**
@@ -92,8 +155,9 @@ public class SocketProvider implements NotificationProvider {
      */
     private void broadcastToAll(String eventName, NotificationRequest request) {
         log.debug("Broadcasting to all clients");
-        socketServer.getBroadcastOperations()
-                .sendEvent(eventName, buildSocketMessage(request));
+        SocketPayload payload = SocketPayload.of(buildSocketMessage(request));
+        publish(BROADCAST_TARGET, eventName, payload);
+        eventBus.publish(new SocketEvent(SocketEvent.Scope.BROADCAST, null, eventName, payload));
     }
 
     /**
@@ -101,8 +165,180 @@ public class SocketProvider implements NotificationProvider {
      */
     private void sendToSession(String sessionId, String eventName, NotificationRequest request) {
         log.debug("Sending to session: {}", sessionId);
-        socketServer.getClient(java.util.UUID.fromString(sessionId))
-                .sendEvent(eventName, buildSocketMessage(request));
+        SocketIOClient client = socketServer.getClient(java.util.UUID.fromString(sessionId));
+        if (client == null) {
+            throw new NotificationException("Socket session is not connected: " + sessionId);
+        }
+        client.sendEvent(eventName, SocketPayload.of(buildSocketMessage(request)));
+    }
+
+    /**
+     * Send notification to all sessions of a user
+     *
+     * @return SENT if a local session received it, PUBLISHED if it went to the
+     *         other nodes without a local session (buffered here later unless
+     *         one of them reports delivery), BUFFERED if the user is offline
+     */
+    private Delivery sendToUser(String userId, String eventName, NotificationRequest request) {
+        return deliverToUser(userId, eventName, SocketPayload.of(buildSocketMessage(request)));
+    }
+
+    private Delivery deliverToUser(String userId, String eventName, SocketPayload payload) {
+        int delivered = sendToLocalSessions(userId, eventName, payload);
+        if (eventBus.isDistributed()) {
+            if (delivered > 0) {
+                // Other sessions of the user may live on other nodes
+                eventBus.publish(new SocketEvent(SocketEvent.Scope.USER, userId, eventName, payload));
+                return Delivery.SENT;
+            }
+            publishUnconfirmed(userId, eventName, payload);
+            return Delivery.PUBLISHED;
+        }
+        if (delivered > 0) {
+            return Delivery.SENT;
+        }
+
+        if (!offlineBuffer.isEnabled()) {
+            throw new NotificationException("User is not connected: " + userId);
+        }
+        offlineBuffer.add(userId, eventName, payload);
+        return Delivery.BUFFERED;
+    }
+
+    /**
+     * Publish a user event and buffer it here unless another node reports
+     * delivery within the delivery timeout
+     */
+    private void publishUnconfirmed(String userId, String eventName, SocketPayload payload) {
+        String id = UUID.randomUUID().toString();
+        // Registered first: a synchronous bus may report delivery before publish returns
+        unconfirmed.put(id, new Unconfirmed(userId, eventName, payload));
+        eventBus.publish(new SocketEvent(SocketEvent.Scope.USER, userId, eventName, payload, id));
+        deliveryTimer.schedule(() -> expire(id), socketConfig.getBus().getDeliveryTimeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void expire(String id) {
+        Unconfirmed event = unconfirmed.remove(id);
+        if (event == null) {
+            return;
+        }
+        if (offlineBuffer.isEnabled()) {
+            log.debug("No node delivered socket event for user {}, buffering it", event.userId);
+            offlineBuffer.add(event.userId, event.eventName, event.payload);
+        } else {
+            log.warn("No node delivered socket event '{}' for user {}; dropped (offline buffer disabled)",
+                    event.eventName, event.userId);
+        }
+    }
+
+    /**
+     * Send to the user's sessions connected to this node
+     *
+     * @return Number of sessions written to
+     */
+    private int sendToLocalSessions(String userId, String eventName, SocketPayload payload) {
+        java.util.Set<java.util.UUID> sessions = sessionRegistry.getSessions(userId);
+        log.debug("Sending to user: {} ({} local sessions)", userId, sessions.size());
+
+        int delivered = 0;
+        for (java.util.UUID sessionId : sessions) {
+            SocketIOClient client = socketServer.getClient(sessionId);
+            if (client != null) {
+                client.sendEvent(eventName, payload);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Handle an event published by another node: deliver notifications to the
+     * local sessions only, and act on delivery reports and reconnects
+     */
+    private void deliverFromBus(SocketEvent event) {
+        switch (event.getScope()) {
+            case ROOM:
+                publish(event.getTarget(), event.getEventName(), event.getPayload());
+                break;
+            case BROADCAST:
+                publish(BROADCAST_TARGET, event.getEventName(), event.getPayload());
+                break;
+            case DELIVERED:
+                unconfirmed.remove(event.getId());
+                break;
+            case CONNECTED:
+                republishBuffered(event.getTarget());
+                break;
+            case USER:
+            default:
+                int delivered = sendToLocalSessions(event.getTarget(), event.getEventName(), event.getPayload());
+                if (delivered > 0 && event.getId() != null) {
+                    eventBus.publish(new SocketEvent(SocketEvent.Scope.DELIVERED, null, null, null, event.getId()));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Deliver events buffered while the user was offline, oldest first, and
+     * ask other nodes for the events they hold
+     */
+    private void replayBuffered(SocketIOClient client) {
+        String userId = sessionRegistry.getUserId(client.getSessionId());
+        if (userId == null || !offlineBuffer.isEnabled()) {
+            return;
+        }
+        java.util.List<SocketOfflineBuffer.Buffered> events = offlineBuffer.drain(userId);
+        if (!events.isEmpty()) {
+            log.debug("Replaying {} buffered socket events to user {}", events.size(), userId);
+            events.forEach(event -> client.sendEvent(event.getEventName(), event.getPayload()));
+        }
+        if (eventBus.isDistributed()) {
+            eventBus.publish(new SocketEvent(SocketEvent.Scope.CONNECTED, userId, null, null));
+        }
+    }
+
+    /**
+     * Send events buffered here to a user who connected to another node
+     */
+    private void republishBuffered(String userId) {
+        if (!offlineBuffer.isEnabled()) {
+            return;
+        }
+        java.util.List<SocketOfflineBuffer.Buffered> events = offlineBuffer.drain(userId);
+        if (!events.isEmpty()) {
+            log.debug("User {} connected to another node, forwarding {} buffered socket events", userId,
+                    events.size());
+            events.forEach(event -> deliverToUser(userId, event.getEventName(), event.getPayload()));
+        }
+    }
+
+    private void publish(String target, String eventName, SocketPayload payload) {
+        if (batcher != null) {
+            batcher.enqueue(target, eventName, payload);
+        } else {
+            emit(target, eventName, payload);
+        }
+    }
+
+    /**
+     * Write one frame to a room, or to every client for the broadcast target
+     */
+    private void emit(String target, String eventName, SocketPayload payload) {
+        if (BROADCAST_TARGET.equals(target)) {
+            socketServer.getBroadcastOperations().sendEvent(eventName, payload);
+        } else {
+            socketServer.getRoomOperations(target).sendEvent(eventName, payload);
+        }
+    }
+
+    @PreDestroy
+    public void flushBatches() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        deliveryTimer.shutdownNow();
     }
 
     /**
@@ -135,4 +371,20 @@ public class SocketProvider implements NotificationProvider {
         return "SOCKET_" + System.currentTimeMillis() + "_" +
                 (int) (Math.random() * 10000);
     }
+
+    /**
+     * User event published to other nodes and not yet reported delivered
+     */
+    private static final class Unconfirmed {
+
+        private final String userId;
+        private final String eventName;
+        private final SocketPayload payload;
+
+        Unconfirmed(String userId, String eventName, SocketPayload payload) {
+            this.userId = userId;
+            this.eventName = eventName;
+            this.payload = payload;
+        }
+    }
 }
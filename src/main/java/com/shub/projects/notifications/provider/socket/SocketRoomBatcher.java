@@ -0,0 +1,135 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.shub.projects.notifications.config.SocketConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces events addressed to the same room into one Socket.IO frame
+ *
+ * The first event for a target opens a window of {@code flush-interval}; every
+ * event arriving inside the window joins the same frame, which is emitted as
+ * one {@code batch-event-name} event holding an array of {event, data} entries.
+ * A window closes early once it holds {@code max-batch-size} events. Enqueueing
+ * is lock-free; flushing happens on a single scheduler thread.
+ */
+@Slf4j
+class SocketRoomBatcher implements AutoCloseable {
+
+    /**
+     * Emits one frame to a room or broadcast target
+     */
+    interface Sender {
+        void send(String target, String eventName, SocketPayload payload);
+    }
+
+    private final SocketConfig.Batching config;
+    private final Sender sender;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    SocketRoomBatcher(SocketConfig.Batching config, Sender sender) {
+        this.config = config;
+        this.sender = sender;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("socket-batcher-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Add an event to the target's current window
+     */
+    void enqueue(String target, String eventName, SocketPayload payload) {
+        Window window = windows.computeIfAbsent(target, Window::new);
+        window.events.add(new Event(eventName, payload));
+        int size = window.size.incrementAndGet();
+
+        if (size >= config.getMaxBatchSize()) {
+            scheduler.execute(() -> flush(window));
+        } else if (window.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> flush(window), config.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        windows.values().forEach(this::flush);
+    }
+
+    private void flush(Window window) {
+        window.scheduled.set(false);
+        while (true) {
+            List<String> eventNames = new ArrayList<>();
+            List<SocketPayload> payloads = new ArrayList<>();
+            Event event;
+            while (payloads.size() < config.getMaxBatchSize() && (event = window.events.poll()) != null) {
+                eventNames.add(event.name);
+                payloads.add(event.payload);
+            }
+            if (payloads.isEmpty()) {
+                return;
+            }
+            window.size.addAndGet(-payloads.size());
+
+            try {
+                if (payloads.size() == 1) {
+                    sender.send(window.target, eventNames.get(0), payloads.get(0));
+                } else {
+                    sender.send(window.target, config.getBatchEventName(), SocketPayload.batch(eventNames, payloads));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} socket events to {}", payloads.size(), window.target, e);
+            }
+
+            // Leftovers below a full frame wait for the next window; on close, drain everything
+            if (window.size.get() < config.getMaxBatchSize() && !scheduler.isShutdown()) {
+                if (window.size.get() > 0 && window.scheduled.compareAndSet(false, true)) {
+                    scheduler.schedule(() -> flush(window), config.getFlushInterval().toMillis(),
+                            TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    private static final class Window {
+
+        private final String target;
+        private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Window(String target) {
+            this.target = target;
+        }
+    }
+
+    private static final class Event {
+
+        private final String name;
+        private final SocketPayload payload;
+
+        Event(String name, SocketPayload payload) {
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+}
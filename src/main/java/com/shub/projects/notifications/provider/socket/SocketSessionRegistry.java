@@ -0,0 +1,81 @@
+package com.shub.projects.notifications.provider.socket;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of live Socket.IO sessions by user ID
+ *
+ * Maintained by the connect and disconnect listeners in SocketConfig. Both maps
+ * are ConcurrentHashMaps and each user's session set is a concurrent key set,
+ * so registration only contends on the hash bin of one user and lookups take
+ * no lock at all.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification.socket", name = "enabled", havingValue = "true")
+public class SocketSessionRegistry {
+
+    private final Map<String, Set<UUID>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<UUID, String> userBySession = new ConcurrentHashMap<>();
+
+    /**
+     * Record a connected session of a user
+     */
+    public void register(String userId, UUID sessionId) {
+        String previous = userBySession.put(sessionId, userId);
+        if (previous != null && !previous.equals(userId)) {
+            removeSession(previous, sessionId);
+        }
+        sessionsByUser.compute(userId, (key, sessions) -> {
+            Set<UUID> target = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            target.add(sessionId);
+            return target;
+        });
+    }
+
+    /**
+     * Forget a disconnected session
+     *
+     * @return User the session belonged to, or null if it was anonymous
+     */
+    public String unregister(UUID sessionId) {
+        String userId = userBySession.remove(sessionId);
+        if (userId != null) {
+            removeSession(userId, sessionId);
+        }
+        return userId;
+    }
+
+    /**
+     * Live sessions of a user; empty if the user has none
+     */
+    public Set<UUID> getSessions(String userId) {
+        Set<UUID> sessions = sessionsByUser.get(userId);
+        return sessions != null ? Collections.unmodifiableSet(sessions) : Collections.emptySet();
+    }
+
+    public String getUserId(UUID sessionId) {
+        return userBySession.get(sessionId);
+    }
+
+    public int getUserCount() {
+        return sessionsByUser.size();
+    }
+
+    public int getSessionCount() {
+        return userBySession.size();
+    }
+
+    private void removeSession(String userId, UUID sessionId) {
+        sessionsByUser.computeIfPresent(userId, (key, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
@@ -5,37 +5,65 @@ import com.shub.projects.notifications.dto.NotificationRequest;
 import com.shub.projects.notifications.dto.NotificationResponse;
 import com.shub.projects.notifications.exception.NotificationException;
 import com.shub.projects.notifications.provider.NotificationProvider;
+import com.shub.projects.notifications.provider.ProviderErrors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * WhatsApp Cloud API Provider
  * 
  * Uses Meta's WhatsApp Business Cloud API (Graph API v18+)
  * Documentation: https://developers.facebook.com/docs/whatsapp/cloud-api
+ *
+ * Outbound calls are paced per sending phone number by a
+ * {@link WhatsAppRateLimiter}, which backs off when Meta reports throttling.
  */
 @Slf4j
 @Service
 @ConditionalOnProperty(prefix = "notification.whatsapp", name = "enabled", havingValue = "true")
 public class WhatsAppCloudApiProvider implements NotificationProvider {
 
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<Map<String, Object>>() {
+            };
+
+    /**
+     * Graph API error codes for throughput, rate and spam limits
+     */
+    private static final Set<Integer> THROTTLE_ERROR_CODES = Set.of(4, 80007, 130429, 131048, 131056);
+    private static final Pattern ERROR_CODE = Pattern.compile("\"code\"\\s*:\\s*(\\d+)");
+
     private final NotificationProperties properties;
     private final WebClient webClient;
     private final String baseUrl;
+    private final WhatsAppTemplatePayloads templatePayloads;
+    private final Map<String, WhatsAppRateLimiter> rateLimiters = new ConcurrentHashMap<>();
 
-    public WhatsAppCloudApiProvider(NotificationProperties properties) {
+    public WhatsAppCloudApiProvider(NotificationProperties properties, ObjectProvider<CacheManager> cacheManager) {
         this.properties = properties;
-        this.baseUrl = String.format("https://graph.facebook.com/%s/%s",
-                properties.getWhatsapp().getApiVersion(),
-                properties.getWhatsapp().getPhoneNumberId());
+        CacheManager manager = cacheManager.getIfAvailable();
+        this.templatePayloads = new WhatsAppTemplatePayloads(manager != null ? manager.getCache("templates") : null);
+        // Phone number is a path variable so each sender gets its own limiter
+        this.baseUrl = String.format("%s/%s",
+                properties.getWhatsapp().getGraphApiUrl(),
+                properties.getWhatsapp().getApiVersion());
 
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
@@ -53,40 +81,131 @@ public class WhatsAppCloudApiProvider implements NotificationProvider {
         return "WHATSAPP";
     }
 
+    /**
+     * Send on the calling thread, waiting for the rate limiter no longer than
+     * rate-limit.max-blocking-delay
+     */
     @Override
     public NotificationResponse send(NotificationRequest request) {
-        try {
-            Map<String, Object> payload = buildMessagePayload(request);
-
-            Map<String, Object> response = webClient.post()
-                    .uri("/messages")
-                    .bodyValue(payload)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            if (response != null && response.containsKey("messages")) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> messages = (Map<String, Object>) ((java.util.List<?>) response.get("messages"))
-                        .get(0);
-                String messageId = (String) messages.get("id");
-
-                log.info("WhatsApp message sent successfully. MessageId: {}", messageId);
-                return NotificationResponse.builder()
-                        .success(true)
-                        .messageId(messageId)
-                        .status("SENT")
-                        .providerResponse(response)
-                        .timestamp(java.time.LocalDateTime.now())
-                        .build();
+        return send(request, properties.getWhatsapp().getRateLimit().getMaxBlockingDelay()).block();
+    }
+
+    /**
+     * Send a message once the sender's rate limiter admits it
+     *
+     * The sending number defaults to notification.whatsapp.phone-number-id and
+     * can be overridden with a "phoneNumberId" metadata entry naming one of the
+     * configured numbers.
+     */
+    @Override
+    public Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+        return send(request, properties.getWhatsapp().getRateLimit().getMaxQueueDelay());
+    }
+
+    private Mono<NotificationResponse> send(NotificationRequest request, Duration maxDelay) {
+        String phoneNumberId = resolvePhoneNumberId(request);
+        if (!isConfiguredPhoneNumber(phoneNumberId)) {
+            log.warn("Rejected WhatsApp message from unconfigured phone number ID {}", phoneNumberId);
+            return Mono.just(NotificationResponse.failure("Unknown WhatsApp phoneNumberId: " + phoneNumberId));
+        }
+        WhatsAppRateLimiter limiter = rateLimiter(phoneNumberId);
+
+        Mono<Map<String, Object>> call = Mono.defer(() -> webClient.post()
+                .uri("/{phoneNumberId}/messages", phoneNumberId)
+                .bodyValue(request.getTemplateId() != null
+                        ? templatePayloads.render(normalizePhoneNumber(request.getRecipient()),
+                                request.getTemplateId(), request.getTemplateParameters())
+                        : buildMessagePayload(request))
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE));
+        if (limiter != null) {
+            call = limiter.acquire(maxDelay)
+                    .then(call)
+                    .doOnSuccess(response -> limiter.onSuccess())
+                    .doOnError(e -> {
+                        if (isThrottled(e)) {
+                            limiter.onThrottled();
+                        }
+                    });
+        }
+
+        return call
+                .switchIfEmpty(Mono.error(() -> new NotificationException("Empty response from WhatsApp API")))
+                .map(this::toNotificationResponse)
+                .onErrorResume(e -> {
+                    log.error("Failed to send WhatsApp message: {}", e.getMessage(), e);
+                    return Mono.just(NotificationResponse.failure(
+                            isThrottled(e) ? ProviderErrors.RATE_LIMITED : ProviderErrors.codeOf(e),
+                            "WhatsApp send failed: " + e.getMessage()));
+                });
+    }
+
+    private String resolvePhoneNumberId(NotificationRequest request) {
+        if (request.getMetadata() != null && request.getMetadata().get("phoneNumberId") != null) {
+            return String.valueOf(request.getMetadata().get("phoneNumberId"));
+        }
+        return properties.getWhatsapp().getPhoneNumberId();
+    }
+
+    /**
+     * Whether the number is the default sender or one of the additional ones
+     */
+    private boolean isConfiguredPhoneNumber(String phoneNumberId) {
+        NotificationProperties.WhatsAppConfig whatsapp = properties.getWhatsapp();
+        return phoneNumberId != null
+                && (phoneNumberId.equals(whatsapp.getPhoneNumberId())
+                        || whatsapp.getAdditionalPhoneNumberIds().contains(phoneNumberId));
+    }
+
+    /**
+     * Limiter for a sending phone number, or null when rate limiting is disabled
+     */
+    private WhatsAppRateLimiter rateLimiter(String phoneNumberId) {
+        NotificationProperties.WhatsAppConfig.RateLimitConfig rateLimit = properties.getWhatsapp().getRateLimit();
+        if (!rateLimit.isEnabled()) {
+            return null;
+        }
+        return rateLimiters.computeIfAbsent(phoneNumberId, id -> new WhatsAppRateLimiter(id, rateLimit));
+    }
+
+    /**
+     * Whether a failed call was rejected by Meta's rate or throughput limits
+     */
+    private boolean isThrottled(Throwable error) {
+        if (!(error instanceof WebClientResponseException)) {
+            return false;
+        }
+        WebClientResponseException responseError = (WebClientResponseException) error;
+        if (responseError.getRawStatusCode() == 429) {
+            return true;
+        }
+        Matcher matcher = ERROR_CODE.matcher(responseError.getResponseBodyAsString());
+        while (matcher.find()) {
+            if (THROTTLE_ERROR_CODES.contains(Integer.parseInt(matcher.group(1)))) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            throw new NotificationException("Invalid response from WhatsApp API");
+    private NotificationResponse toNotificationResponse(Map<String, Object> response) {
+        if (response.containsKey("messages")) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> messages = (Map<String, Object>) ((java.util.List<?>) response.get("messages"))
+                    .get(0);
+            String messageId = (String) messages.get("id");
 
-        } catch (Exception e) {
-            log.error("Failed to send WhatsApp message: {}", e.getMessage(), e);
-            return NotificationResponse.failure("WhatsApp send failed: " + e.getMessage());
+            log.info("WhatsApp message sent successfully. MessageId: {}", messageId);
+            return NotificationResponse.builder()
+                    .success(true)
+                    .messageId(messageId)
+                    .status("SENT")
+                    .providerResponse(response)
+                    .timestamp(java.time.LocalDateTime.now())
+                    .build();
         }
+
+        throw new NotificationException("Invalid response from WhatsApp API");
     }
 
     @Override
@@ -95,7 +214,10 @@ public class WhatsAppCloudApiProvider implements NotificationProvider {
     }
 
     /**
-     * Build message payload according to WhatsApp Cloud API specification
+     * Build a text or media message payload according to WhatsApp Cloud API specification
+     * 
+     * Template messages are rendered from cached pre-serialized skeletons by
+     * {@link WhatsAppTemplatePayloads} instead.
      */
     private Map<String, Object> buildMessagePayload(NotificationRequest request) {
         Map<String, Object> payload = new HashMap<>();
@@ -103,13 +225,8 @@ public class WhatsAppCloudApiProvider implements NotificationProvider {
         payload.put("recipient_type", "individual");
         payload.put("to", normalizePhoneNumber(request.getRecipient()));
 
-        // If template is specified, use template message
-        if (request.getTemplateId() != null) {
-            payload.put("type", "template");
-            payload.put("template", buildTemplateObject(request));
-        }
         // If media is attached, use media message
-        else if (request.getMedia() != null) {
+        if (request.getMedia() != null) {
             payload.put("type", request.getMedia().getType());
             payload.put(request.getMedia().getType(), buildMediaObject(request));
         }
@@ -125,28 +242,6 @@ public class WhatsAppCloudApiProvider implements NotificationProvider {
         return payload;
     }
 
-    private Map<String, Object> buildTemplateObject(NotificationRequest request) {
-        Map<String, Object> template = new HashMap<>();
-        template.put("name", request.getTemplateId());
-        template.put("language", Map.of("code", "en"));
-
-        if (request.getTemplateParameters() != null && !request.getTemplateParameters().isEmpty()) {
-            java.util.List<Map<String, String>> components = new java.util.ArrayList<>();
-            Map<String, Object> bodyComponent = new HashMap<>();
-            bodyComponent.put("type", "body");
-
-            java.util.List<Map<String, String>> parameters = new java.util.ArrayList<>();
-            request.getTemplateParameters().forEach((key, value) -> {
-                parameters.add(Map.of("type", "text", "text", value));
-            });
-            bodyComponent.put("parameters", parameters);
-            components.add((Map<String, String>) (Object) bodyComponent);
-            template.put("components", components);
-        }
-
-        return template;
-    }
-
     private Map<String, Object> buildMediaObject(NotificationRequest request) {
         Map<String, Object> media = new HashMap<>();
         media.put("link", request.getMedia().getUrl());
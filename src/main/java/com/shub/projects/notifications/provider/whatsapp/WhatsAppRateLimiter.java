@@ -0,0 +1,131 @@
+package com.shub.projects.notifications.provider.whatsapp;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.exception.NotificationException;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive token bucket for one WhatsApp business phone number
+ *
+ * Callers reserve a token and are delayed on the reactor timer until it is
+ * due, so bursts are paced instead of failing at Meta. The refill rate is cut
+ * multiplicatively when the Graph API reports throttling and recovers
+ * additively with successful sends, never exceeding the configured rate.
+ */
+@Slf4j
+final class WhatsAppRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String phoneNumberId;
+    private final NotificationProperties.WhatsAppConfig.RateLimitConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    WhatsAppRateLimiter(String phoneNumberId, NotificationProperties.WhatsAppConfig.RateLimitConfig config) {
+        this.phoneNumberId = phoneNumberId;
+        this.config = config;
+        this.rate = config.getMessagesPerSecond();
+        this.tokens = config.getBurst();
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Wait, without blocking a thread, until the caller may send one message
+     *
+     * @return Mono completing when the send is due, or failing if the wait would
+     *         exceed the configured maximum queue delay
+     */
+    Mono<Void> acquire() {
+        return acquire(config.getMaxQueueDelay());
+    }
+
+    /**
+     * Like {@link #acquire()}, failing if the wait would exceed {@code maxDelay}
+     * or the configured maximum queue delay, whichever is shorter
+     */
+    Mono<Void> acquire(Duration maxDelay) {
+        long maxDelayNanos = Math.min(maxDelay.toNanos(), config.getMaxQueueDelay().toNanos());
+        return Mono.defer(() -> {
+            long delay = reserve(maxDelayNanos);
+            if (delay < 0) {
+                return Mono.error(new NotificationException(
+                        "WhatsApp rate limit queue is full for phone number " + phoneNumberId,
+                        ProviderErrors.RATE_LIMITED));
+            }
+            return delay == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(delay)).then();
+        });
+    }
+
+    /**
+     * Slow down after Meta reported a throughput or spam limit
+     */
+    void onThrottled() {
+        lock.lock();
+        try {
+            double previous = rate;
+            rate = Math.max(config.getMinMessagesPerSecond(), rate * config.getBackoffFactor());
+            tokens = Math.min(tokens, 0);
+            log.warn("WhatsApp throttled for phone number {}: rate {} -> {} msg/s",
+                    phoneNumberId, String.format("%.1f", previous), String.format("%.1f", rate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recover towards the configured rate after a successful send
+     */
+    void onSuccess() {
+        lock.lock();
+        try {
+            if (rate < config.getMessagesPerSecond()) {
+                // About recoveryStep msg/s gained per second of successful traffic
+                rate = Math.min(config.getMessagesPerSecond(), rate + config.getRecoveryStep() / rate);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double getCurrentRate() {
+        return rate;
+    }
+
+    /**
+     * Take a token, letting the balance go negative for queued callers
+     *
+     * @return Nanoseconds until the reserved token is due, or -1 if rejected
+     */
+    private long reserve(long maxDelayNanos) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = Math.min(config.getBurst(), tokens + (now - lastRefill) * rate / NANOS_PER_SECOND);
+            lastRefill = now;
+
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+
+            long delay = (long) (-tokens / rate * NANOS_PER_SECOND);
+            if (delay > maxDelayNanos) {
+                tokens += 1;
+                return -1;
+            }
+            return delay;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.shub.projects.notifications.provider.whatsapp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.WhatsAppStatusUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous ingestion of WhatsApp webhook status callbacks
+ *
+ * The webhook only hands the raw request body to a bounded queue. A single
+ * worker thread drains payloads in batches, extracts statuses with the Jackson
+ * streaming parser (no object tree per payload), keeps the most advanced status
+ * per message and writes the batch to the "whatsapp-status" cache in one bulk
+ * operation before passing it to any {@link WhatsAppStatusListener} beans.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.whatsapp", name = "enabled", havingValue = "true")
+public class WhatsAppStatusIngestor {
+
+    private static final String STATUS_CACHE = "whatsapp-status";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final NotificationProperties.WhatsAppConfig.WebhookConfig config;
+    private final BlockingQueue<byte[]> queue;
+    private final Cache cache;
+    private final List<WhatsAppStatusListener> listeners;
+    private final Thread worker;
+    private final AtomicLong ingested = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    public WhatsAppStatusIngestor(NotificationProperties properties, ObjectProvider<CacheManager> cacheManager,
+            ObjectProvider<WhatsAppStatusListener> listeners) {
+        this.config = properties.getWhatsapp().getWebhook();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        CacheManager manager = cacheManager.getIfAvailable();
+        this.cache = manager != null ? manager.getCache(STATUS_CACHE) : null;
+        this.listeners = listeners.orderedStream().collect(Collectors.toList());
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("whatsapp-status-");
+        threadFactory.setDaemon(true);
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * Queue a webhook payload for ingestion without blocking
+     *
+     * @param payload Raw webhook request body
+     * @return false if the queue is full and the payload was dropped
+     */
+    public boolean submit(byte[] payload) {
+        if (queue.offer(payload)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getIngestedCount() {
+        return ingested.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                byte[] first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                ingest(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: drain what is already queued, then exit
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Failed to ingest WhatsApp status batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void ingest(List<byte[]> payloads) {
+        Map<String, WhatsAppStatusUpdate> latest = new LinkedHashMap<>();
+        for (byte[] payload : payloads) {
+            try {
+                parseStatuses(payload, update -> latest.merge(update.getMessageId(), update,
+                        (current, candidate) -> candidate.rank() >= current.rank() ? candidate : current));
+            } catch (IOException e) {
+                log.warn("Ignoring malformed WhatsApp webhook payload: {}", e.getMessage());
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        writeToCache(latest);
+        ingested.addAndGet(latest.size());
+
+        List<WhatsAppStatusUpdate> updates = new ArrayList<>(latest.values());
+        for (WhatsAppStatusListener listener : listeners) {
+            try {
+                listener.onStatusUpdates(updates);
+            } catch (RuntimeException e) {
+                log.error("WhatsApp status listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Bulk write, keeping a cached status that is further along than the update
+     */
+    private void writeToCache(Map<String, WhatsAppStatusUpdate> latest) {
+        if (cache == null) {
+            return;
+        }
+        if (cache instanceof CaffeineCache) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                    ((CaffeineCache) cache).getNativeCache();
+            nativeCache.getAllPresent(latest.keySet()).forEach((messageId, cached) -> {
+                if (cached instanceof WhatsAppStatusUpdate
+                        && ((WhatsAppStatusUpdate) cached).rank() > latest.get(messageId).rank()) {
+                    latest.remove(messageId);
+                }
+            });
+            nativeCache.putAll(latest);
+        } else {
+            latest.forEach(cache::put);
+        }
+    }
+
+    /**
+     * Stream through a webhook payload and emit every entry of each
+     * {@code entry[].changes[].value.statuses} array; other fields are skipped
+     */
+    static void parseStatuses(byte[] payload, Consumer<WhatsAppStatusUpdate> consumer)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && "statuses".equals(parser.getCurrentName())
+                        && parser.nextToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        WhatsAppStatusUpdate update = parseStatus(parser);
+                        if (update.getMessageId() != null) {
+                            consumer.accept(update);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static WhatsAppStatusUpdate parseStatus(JsonParser parser) throws IOException {
+        WhatsAppStatusUpdate update = new WhatsAppStatusUpdate();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    update.setMessageId(parser.getValueAsString());
+                    break;
+                case "status":
+                    update.setStatus(parser.getValueAsString());
+                    break;
+                case "recipient_id":
+                    update.setRecipientId(parser.getValueAsString());
+                    break;
+                case "timestamp":
+                    update.setTimestamp(parser.getValueAsLong());
+                    break;
+                case "errors":
+                    parseFirstError(parser, update, value);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return update;
+    }
+
+    private static void parseFirstError(JsonParser parser, WhatsAppStatusUpdate update, JsonToken value)
+            throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (update.getErrorCode() == null && "code".equals(field)) {
+                    update.setErrorCode(parser.getValueAsInt());
+                } else if (update.getErrorTitle() == null && "title".equals(field)) {
+                    update.setErrorTitle(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+}
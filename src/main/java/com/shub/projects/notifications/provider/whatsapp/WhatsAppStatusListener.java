@@ -0,0 +1,19 @@
+package com.shub.projects.notifications.provider.whatsapp;
+
+import com.shub.projects.notifications.dto.WhatsAppStatusUpdate;
+
+import java.util.List;
+
+/**
+ * Receives batches of WhatsApp delivery statuses from the webhook ingestor
+ *
+ * Implement as a bean to persist statuses; calls are made from the ingestor's
+ * worker thread, never from the HTTP request thread.
+ */
+public interface WhatsAppStatusListener {
+
+    /**
+     * @param updates Statuses of one ingest batch, at most one per message ID
+     */
+    void onStatusUpdates(List<WhatsAppStatusUpdate> updates);
+}
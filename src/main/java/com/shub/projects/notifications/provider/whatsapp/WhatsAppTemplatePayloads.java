@@ -0,0 +1,120 @@
+package com.shub.projects.notifications.provider.whatsapp;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.cache.Cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-serialized WhatsApp template message payloads
+ *
+ * The JSON for a template message is the same for every recipient except the
+ * {@code to} number and the body parameter values. Skeletons holding the fixed
+ * UTF-8 bytes around those slots are cached per template name and parameter
+ * count in the "templates" cache; each message only escapes its own values and
+ * copies everything into one exactly sized byte array.
+ */
+final class WhatsAppTemplatePayloads {
+
+    private static final byte[] HEAD = bytes(
+            "{\"messaging_product\":\"whatsapp\",\"recipient_type\":\"individual\",\"to\":\"");
+    private static final byte[] PARAMETER_SEPARATOR = bytes("\"},{\"type\":\"text\",\"text\":\"");
+
+    private final Cache cache;
+    private final Map<String, Skeleton> localCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param cache Shared "templates" cache, or null to cache skeletons locally
+     */
+    WhatsAppTemplatePayloads(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Render the JSON payload of a template message
+     *
+     * @param recipient  Normalized recipient number
+     * @param templateId Template name
+     * @param parameters Body parameters in send order, may be null
+     * @return UTF-8 JSON request body
+     */
+    byte[] render(String recipient, String templateId, Map<String, String> parameters) {
+        int parameterCount = parameters != null ? parameters.size() : 0;
+        Skeleton skeleton = skeleton(templateId, parameterCount);
+
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        byte[] to = encoder.quoteAsUTF8(recipient);
+        List<byte[]> values = new ArrayList<>(parameterCount);
+        int length = HEAD.length + to.length + skeleton.afterRecipient.length + skeleton.tail.length
+                + Math.max(0, parameterCount - 1) * PARAMETER_SEPARATOR.length;
+        if (parameters != null) {
+            for (String value : parameters.values()) {
+                byte[] escaped = encoder.quoteAsUTF8(value != null ? value : "");
+                values.add(escaped);
+                length += escaped.length;
+            }
+        }
+
+        byte[] payload = new byte[length];
+        int position = copy(HEAD, payload, 0);
+        position = copy(to, payload, position);
+        position = copy(skeleton.afterRecipient, payload, position);
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                position = copy(PARAMETER_SEPARATOR, payload, position);
+            }
+            position = copy(values.get(i), payload, position);
+        }
+        copy(skeleton.tail, payload, position);
+        return payload;
+    }
+
+    private Skeleton skeleton(String templateId, int parameterCount) {
+        String key = "whatsapp:" + templateId + ":" + parameterCount;
+        if (cache != null) {
+            return cache.get(key, () -> Skeleton.build(templateId, parameterCount));
+        }
+        return localCache.computeIfAbsent(key, k -> Skeleton.build(templateId, parameterCount));
+    }
+
+    private static int copy(byte[] source, byte[] target, int position) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fixed bytes of one template layout
+     */
+    static final class Skeleton {
+
+        private final byte[] afterRecipient;
+        private final byte[] tail;
+
+        private Skeleton(byte[] afterRecipient, byte[] tail) {
+            this.afterRecipient = afterRecipient;
+            this.tail = tail;
+        }
+
+        static Skeleton build(String templateId, int parameterCount) {
+            String name = new String(JsonStringEncoder.getInstance().quoteAsString(templateId));
+            StringBuilder afterRecipient = new StringBuilder()
+                    .append("\",\"type\":\"template\",\"template\":{\"name\":\"")
+                    .append(name)
+                    .append("\",\"language\":{\"code\":\"en\"}");
+
+            if (parameterCount == 0) {
+                return new Skeleton(bytes(afterRecipient.append('}').toString()), bytes("}"));
+            }
+            afterRecipient.append(",\"components\":[{\"type\":\"body\",\"parameters\":[{\"type\":\"text\",\"text\":\"");
+            return new Skeleton(bytes(afterRecipient.toString()), bytes("\"}]}]}}"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.shub.projects.notifications.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shub.projects.notifications.core.ScheduledNotificationStore;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.exception.NotificationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Scheduled notification store in the scheduled_notification table
+ *
+ * Due times are stored as UTC. Requests are kept as JSON so the table does not
+ * change when NotificationRequest gains fields.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notification.database", name = "enabled", havingValue = "true")
+public class JdbcScheduledNotificationStore implements ScheduledNotificationStore {
+
+    private static final String INSERT_SQL = "INSERT INTO scheduled_notification (id, due_at, request, created_at) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM scheduled_notification WHERE id = ?";
+    private static final String SELECT_SQL = "SELECT id, due_at, request FROM scheduled_notification";
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectReader requestReader;
+    private final ObjectWriter requestWriter;
+
+    public JdbcScheduledNotificationStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requestReader = objectMapper.readerFor(NotificationRequest.class);
+        this.requestWriter = objectMapper.writerFor(NotificationRequest.class);
+    }
+
+    @Override
+    public void save(String id, Instant dueAt, NotificationRequest request) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, toTimestamp(dueAt), requestWriter.writeValueAsString(request),
+                    toTimestamp(Instant.now()));
+        } catch (JsonProcessingException e) {
+            throw new NotificationException("Cannot serialize scheduled notification", e);
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, new ArrayList<>(ids), DELETE_BATCH_SIZE,
+                (statement, id) -> statement.setString(1, id));
+    }
+
+    @Override
+    public void loadAll(Loader loader) {
+        jdbcTemplate.query(SELECT_SQL, resultSet -> {
+            String id = resultSet.getString(1);
+            try {
+                loader.accept(id, resultSet.getTimestamp(2).toLocalDateTime().toInstant(ZoneOffset.UTC),
+                        requestReader.readValue(resultSet.getString(3)));
+            } catch (JsonProcessingException e) {
+                log.error("Skipping unreadable scheduled notification {}: {}", id, e.getMessage());
+            }
+        });
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,18 @@
+package com.shub.projects.notifications.repository;
+
+import com.shub.projects.notifications.model.NotificationLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to the notification history
+ */
+public interface NotificationLogRepository extends JpaRepository<NotificationLog, Long> {
+
+    List<NotificationLog> findByRecipientOrderByCreatedAtDesc(String recipient, Pageable pageable);
+
+    Optional<NotificationLog> findFirstByMessageId(String messageId);
+}
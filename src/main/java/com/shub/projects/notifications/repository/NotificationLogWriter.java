@@ -0,0 +1,299 @@
+package com.shub.projects.notifications.repository;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.core.NotificationListener;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.dto.WhatsAppStatusUpdate;
+import com.shub.projects.notifications.model.NotificationLog;
+import com.shub.projects.notifications.provider.whatsapp.WhatsAppStatusListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, batched writer for the notification history
+ *
+ * The send path only offers a record to a bounded buffer. A single writer
+ * thread drains it and inserts rows with JDBC batch statements, flushing when
+ * {@code batch-size} records are pending or {@code flush-interval} has passed
+ * since the oldest one. When the buffer is full the sender waits at most
+ * {@code enqueue-timeout} (zero by default) and the record is then dropped and
+ * counted, so a slow database never adds to send latency.
+ *
+ * WhatsApp delivery statuses go through the same buffer, so an update follows
+ * the insert of its row. An update that still finds no row (the webhook beat
+ * the send listener) is parked and applied when the row is inserted.
+ * created_at is stored in UTC, like the scheduled notification store.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${notification.database.enabled:false} && ${notification.database.history.enabled:true}")
+public class NotificationLogWriter implements NotificationListener, WhatsAppStatusListener {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_log "
+            + "(type, recipient, subject, template_id, priority, success, status, message_id, error_message, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS_SQL = "UPDATE notification_log SET status = ? WHERE message_id = ?";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationProperties.DatabaseConfig.HistoryConfig config;
+    // NotificationLog inserts and StatusChange updates, in arrival order
+    private final BlockingQueue<Object> buffer;
+    // Statuses for rows not inserted yet, by message ID; writer thread only
+    private final Map<String, String> parkedStatuses = new LinkedHashMap<>();
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+
+    public NotificationLogWriter(JdbcTemplate jdbcTemplate, NotificationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = properties.getDatabase().getHistory();
+        this.buffer = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("notification-log-writer-");
+        threadFactory.setDaemon(true);
+        this.writer = threadFactory.newThread(this::run);
+        this.writer.start();
+    }
+
+    @Override
+    public void onNotificationSent(NotificationRequest request, NotificationResponse response) {
+        NotificationLog record = NotificationLog.builder()
+                .type(request.getType() != null ? request.getType().toUpperCase() : "UNKNOWN")
+                .recipient(request.getRecipient() != null ? request.getRecipient() : "")
+                .subject(request.getSubject())
+                .templateId(request.getTemplateId())
+                .priority(request.getPriority() != null ? request.getPriority().name() : null)
+                .success(response.isSuccess())
+                .status(response.getStatus() != null ? response.getStatus() : (response.isSuccess() ? "SENT" : "FAILED"))
+                .messageId(response.getMessageId())
+                .errorMessage(truncate(response.getErrorMessage()))
+                .createdAt(toUtc(response.getTimestamp()))
+                .build();
+        enqueue(record);
+    }
+
+    /**
+     * Queue delivery statuses behind the records already buffered
+     */
+    @Override
+    public void onStatusUpdates(List<WhatsAppStatusUpdate> updates) {
+        for (WhatsAppStatusUpdate update : updates) {
+            if (update.getStatus() != null && update.getMessageId() != null) {
+                enqueue(new StatusChange(update.getMessageId(), update.getStatus().toUpperCase()));
+            }
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Object record) {
+        boolean accepted;
+        try {
+            long timeout = config.getEnqueueTimeout().toNanos();
+            accepted = timeout > 0
+                    ? buffer.offer(record, timeout, TimeUnit.NANOSECONDS)
+                    : buffer.offer(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted && dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("Notification log buffer is full; {} records dropped so far", dropped.get());
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(config.getBatchSize());
+        long flushNanos = config.getFlushInterval().toNanos();
+        while (running || !buffer.isEmpty()) {
+            try {
+                Object first = running ? buffer.poll(flushNanos, TimeUnit.NANOSECONDS) : buffer.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the oldest record has waited flush-interval
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < config.getBatchSize()) {
+                    buffer.drainTo(batch, config.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= config.getBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Object next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: write what is already buffered, then exit
+                running = false;
+                flush(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert the batch's records, then apply its status changes
+     */
+    private void flush(List<Object> batch) {
+        List<NotificationLog> records = new ArrayList<>(batch.size());
+        List<StatusChange> changes = new ArrayList<>();
+        for (Object item : batch) {
+            if (item instanceof NotificationLog) {
+                records.add((NotificationLog) item);
+            } else {
+                changes.add((StatusChange) item);
+            }
+        }
+        insert(records);
+        applyStatuses(changes);
+    }
+
+    private void insert(List<NotificationLog> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!parkedStatuses.isEmpty()) {
+            for (NotificationLog record : records) {
+                String status = record.getMessageId() != null ? parkedStatuses.remove(record.getMessageId()) : null;
+                if (status != null) {
+                    record.setStatus(status);
+                }
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (statement, record) -> {
+                statement.setString(1, record.getType());
+                statement.setString(2, record.getRecipient());
+                statement.setString(3, record.getSubject());
+                statement.setString(4, record.getTemplateId());
+                statement.setString(5, record.getPriority());
+                statement.setBoolean(6, record.isSuccess());
+                statement.setString(7, record.getStatus());
+                statement.setString(8, record.getMessageId());
+                statement.setString(9, record.getErrorMessage());
+                statement.setTimestamp(10, Timestamp.valueOf(record.getCreatedAt()));
+            });
+            written.addAndGet(records.size());
+        } catch (RuntimeException e) {
+            failed.addAndGet(records.size());
+            log.error("Failed to write {} notification log records", records.size(), e);
+        }
+    }
+
+    /**
+     * Update statuses by message ID, parking those whose row is not there yet
+     */
+    private void applyStatuses(List<StatusChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, changes, config.getBatchSize(),
+                    (statement, change) -> {
+                        statement.setString(1, change.status);
+                        statement.setString(2, change.messageId);
+                    });
+            int index = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    if (count == 0) {
+                        park(changes.get(index));
+                    }
+                    index++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to update {} WhatsApp delivery statuses", changes.size(), e);
+        }
+    }
+
+    private void park(StatusChange change) {
+        parkedStatuses.put(change.messageId, change.status);
+        if (parkedStatuses.size() > config.getQueueCapacity()) {
+            // Oldest first: its row was most likely dropped and will never arrive
+            Iterator<String> oldest = parkedStatuses.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    int getParkedStatusCount() {
+        return parkedStatuses.size();
+    }
+
+    /**
+     * Response timestamps are system-local; the table holds UTC
+     */
+    private static LocalDateTime toUtc(LocalDateTime localTime) {
+        return localTime != null
+                ? localTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()
+                : LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_ERROR_LENGTH ? value.substring(0, MAX_ERROR_LENGTH) : value;
+    }
+
+    private static final class StatusChange {
+        final String messageId;
+        final String status;
+
+        StatusChange(String messageId, String status) {
+            this.messageId = messageId;
+            this.status = status;
+        }
+    }
+}
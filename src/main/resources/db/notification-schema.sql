@@ -0,0 +1,29 @@
+-- Tables written with plain JDBC by NotificationLogWriter and
+-- JdbcScheduledNotificationStore. Keep in sync with the NotificationLog and
+-- ScheduledNotification entities. All times are UTC.
+
+CREATE TABLE IF NOT EXISTS notification_log (
+    id            BIGINT        NOT NULL AUTO_INCREMENT,
+    type          VARCHAR(20)   NOT NULL,
+    recipient     VARCHAR(255)  NOT NULL,
+    subject       VARCHAR(255),
+    template_id   VARCHAR(100),
+    priority      VARCHAR(10),
+    success       BOOLEAN       NOT NULL,
+    status        VARCHAR(20),
+    message_id    VARCHAR(128),
+    error_message VARCHAR(1000),
+    created_at    DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_notification_log_recipient (recipient, created_at),
+    INDEX idx_notification_log_message_id (message_id)
+);
+
+CREATE TABLE IF NOT EXISTS scheduled_notification (
+    id         VARCHAR(36)  NOT NULL,
+    due_at     DATETIME(6)  NOT NULL,
+    request    LONGTEXT     NOT NULL,
+    created_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_scheduled_notification_due_at (due_at)
+);
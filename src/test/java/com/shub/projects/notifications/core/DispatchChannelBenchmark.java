@@ -0,0 +1,94 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.config.VirtualThreads;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pooled vs virtual-thread dispatch channels under blocking provider calls
+ *
+ * Each operation pushes a burst of tasks that park for {@code latencyMillis},
+ * standing in for an HTTP or SMTP round trip, through one channel and waits
+ * for all of them. Throughput is bounded by concurrency in both modes; the
+ * difference shows the cost of platform threads vs virtual threads at high
+ * concurrency. The virtual mode needs a Java 21 JVM (mvn -Pjava21,benchmark).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DispatchChannelBenchmark {
+
+    private static final int BURST = 2000;
+
+    @Param({"POOLED", "VIRTUAL"})
+    public String mode;
+
+    @Param({"50", "500"})
+    public int concurrency;
+
+    @Param({"20"})
+    public int latencyMillis;
+
+    private DispatchChannel channel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NotificationProperties.ChannelConfig config = new NotificationProperties.ChannelConfig();
+        config.setConcurrency(concurrency);
+        config.setQueueCapacity(BURST);
+        NotificationProperties.PriorityConfig priority = new NotificationProperties.PriorityConfig();
+
+        if ("VIRTUAL".equals(mode)) {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException("Virtual threads need Java 21: run with -Pjava21,benchmark");
+            }
+            channel = new VirtualDispatchChannel("bench", config, priority);
+        } else {
+            channel = new PooledDispatchChannel("bench", config, priority);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        channel.shutdown();
+        channel.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void blockingSends() {
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            DispatchTask task = new DispatchTask("BENCH", NotificationRequest.Priority.NORMAL, null, () -> {
+                LockSupport.parkNanos(parkNanos);
+                return CompletableFuture.completedFuture(NotificationResponse.success("bench"));
+            });
+            channel.execute(task);
+            futures[i] = task.future();
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,64 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyGuardTest {
+
+    private final NotificationProperties properties = new NotificationProperties();
+
+    @Test
+    void deduplicatesOnlyExplicitKeysByDefault() {
+        IdempotencyGuard guard = guard();
+
+        assertThat(guard.claim(request(null)).isOwner()).isTrue();
+        assertThat(guard.claim(request(null)).isOwner()).isTrue();
+
+        assertThat(guard.claim(request("order-1")).isOwner()).isTrue();
+        assertThat(guard.claim(request("order-1")).isOwner()).isFalse();
+    }
+
+    @Test
+    void deduplicatesIdenticalContentWithDerivedKeys() {
+        properties.getIdempotency().setDeriveKeys(true);
+        IdempotencyGuard guard = guard();
+
+        assertThat(guard.claim(request(null)).isOwner()).isTrue();
+        assertThat(guard.claim(request(null)).isOwner()).isFalse();
+    }
+
+    @Test
+    void keepsFirstOutcomeAndReleasesKeyOnFailure() {
+        IdempotencyGuard guard = guard();
+
+        IdempotencyGuard.Claim sent = guard.claim(request("order-1"));
+        sent.complete(NotificationResponse.success("id-1"));
+        sent.fail(new IllegalStateException("late"));
+        assertThat(sent.result().join().isSuccess()).isTrue();
+        assertThat(guard.claim(request("order-1")).isOwner()).isFalse();
+
+        IdempotencyGuard.Claim failed = guard.claim(request("order-2"));
+        failed.fail(new IllegalStateException("boom"));
+        assertThat(failed.result().join().isSuccess()).isFalse();
+        assertThat(guard.claim(request("order-2")).isOwner()).isTrue();
+    }
+
+    private IdempotencyGuard guard() {
+        return new IdempotencyGuard(properties, new StaticListableBeanFactory().getBeanProvider(CacheManager.class));
+    }
+
+    private static NotificationRequest request(String idempotencyKey) {
+        return NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your OTP is 482913")
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
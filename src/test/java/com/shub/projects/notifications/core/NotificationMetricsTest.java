@@ -0,0 +1,73 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final NotificationMetrics metrics = metrics();
+
+    @Test
+    void tagsTypesWithoutProviderAsUnknown() {
+        metrics.recordSend("sms", System.nanoTime(), NotificationResponse.success("sms-1"));
+        metrics.recordSend("PIGEON", System.nanoTime(), NotificationResponse.success("p-1"));
+        metrics.recordSend("CARRIER-PIGEON", System.nanoTime(), NotificationResponse.success("p-2"));
+        metrics.recordSend(null, System.nanoTime(), NotificationResponse.success("p-3"));
+
+        assertThat(sends("SMS")).isEqualTo(1L);
+        assertThat(sends("UNKNOWN")).isEqualTo(3L);
+        assertThat(registry.find("notification.provider.send").tag("type", "PIGEON").timer()).isNull();
+    }
+
+    @Test
+    void countsFailuresByReason() {
+        metrics.recordSend("SMS", System.nanoTime(), NotificationResponse.failure(ProviderErrors.TIMEOUT, "timed out"));
+        metrics.recordSend("SMS", System.nanoTime(), NotificationResponse.failure(ProviderErrors.TIMEOUT, "timed out"));
+        metrics.recordSend("SMS", System.nanoTime(), NotificationResponse.failure("Invalid recipient"));
+        metrics.recordSend("SMS", System.nanoTime(), NotificationResponse.success("sms-1"));
+
+        assertThat(failures(ProviderErrors.TIMEOUT)).isEqualTo(2.0);
+        assertThat(failures("UNKNOWN")).isEqualTo(1.0);
+        assertThat(registry.find("notification.failures").counters()).hasSize(2);
+    }
+
+    private long sends(String type) {
+        return registry.get("notification.provider.send").tag("type", type).tag("operation", "send").timer().count();
+    }
+
+    private double failures(String reason) {
+        return registry.get("notification.failures").tag("type", "SMS").tag("reason", reason).counter().count();
+    }
+
+    private NotificationMetrics metrics() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("registry", registry);
+        return new NotificationMetrics(beans.getBeanProvider(MeterRegistry.class), List.of(new NotificationProvider() {
+            @Override
+            public String getType() {
+                return "SMS";
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public NotificationResponse send(NotificationRequest request) {
+                throw new UnsupportedOperationException();
+            }
+        }));
+    }
+}
@@ -0,0 +1,94 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationRetrierTest {
+
+    private NotificationProperties properties;
+    private NotificationRetrier retrier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setTickDuration(Duration.ofMillis(10));
+        properties.getRetry().getDefaults().setInitialBackoff(Duration.ofMillis(10));
+        properties.getRetry().getDefaults().setMinRetriesPerSecond(10);
+        retrier = new NotificationRetrier(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        retrier.shutdown();
+    }
+
+    @Test
+    void retriesOnlyFailuresThatWereNotDelivered() {
+        NotificationProperties.RetryPolicy policy = properties.getRetry().getDefaults();
+
+        assertThat(retrier.isRetryable(failure(ProviderErrors.CONNECT_FAILED), policy)).isTrue();
+        assertThat(retrier.isRetryable(failure(ProviderErrors.RATE_LIMITED), policy)).isTrue();
+        assertThat(retrier.isRetryable(failure(ProviderErrors.HTTP_PREFIX + "503"), policy)).isTrue();
+        assertThat(retrier.isRetryable(failure(ProviderErrors.TIMEOUT), policy)).isFalse();
+        assertThat(retrier.isRetryable(failure(ProviderErrors.IO_ERROR), policy)).isFalse();
+        assertThat(retrier.isRetryable(failure(ProviderErrors.HTTP_PREFIX + "400"), policy)).isFalse();
+
+        policy.setRetryableErrorCodes(List.of(ProviderErrors.TIMEOUT));
+        assertThat(retrier.isRetryable(failure(ProviderErrors.TIMEOUT), policy)).isTrue();
+    }
+
+    @Test
+    void retriesUntilSuccess() throws Exception {
+        AtomicInteger attempts = new AtomicInteger(1);
+
+        NotificationResponse response = retrier.retryIfNeeded(request(), failure(ProviderErrors.CONNECT_FAILED),
+                () -> CompletableFuture.completedFuture(attempts.incrementAndGet() < 3
+                        ? failure(ProviderErrors.CONNECT_FAILED)
+                        : NotificationResponse.success("id-1")))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void returnsTimeoutWithoutRetrying() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        NotificationResponse response = retrier.retryIfNeeded(request(), failure(ProviderErrors.TIMEOUT),
+                () -> {
+                    attempts.incrementAndGet();
+                    return CompletableFuture.completedFuture(NotificationResponse.success("id-1"));
+                })
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.getErrorCode()).isEqualTo(ProviderErrors.TIMEOUT);
+        assertThat(attempts.get()).isZero();
+    }
+
+    private static NotificationResponse failure(String code) {
+        return NotificationResponse.failure(code, "failed");
+    }
+
+    private static NotificationRequest request() {
+        return NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your order has shipped")
+                .build();
+    }
+}
@@ -0,0 +1,207 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationSchedulerTest {
+
+    private final NotificationProperties properties = new NotificationProperties();
+    private final InMemoryStore store = new InMemoryStore();
+    private NotificationDispatcher dispatcher;
+    private NotificationScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void deletesStoredEntryOnlyAfterSendCompletes() {
+        CompletableFuture<NotificationResponse> send = new CompletableFuture<>();
+        scheduler = scheduler();
+        scheduler.setReleaseHandler(request -> send);
+
+        NotificationResponse scheduled = scheduler.scheduleIfDeferred(request(Instant.now().plusMillis(50)));
+        String id = scheduled.getMessageId();
+        assertThat(store.entries).containsKey(id);
+
+        await(() -> scheduler.getPendingCount() == 0);
+        sleep(100);
+        assertThat(store.entries).containsKey(id);
+
+        send.complete(NotificationResponse.success("sms-1"));
+        await(() -> store.entries.isEmpty());
+    }
+
+    @Test
+    void refusesRequestsBeyondMaxPending() {
+        properties.getScheduler().setMaxPending(2);
+        scheduler = scheduler();
+        Instant later = Instant.now().plusSeconds(3600);
+
+        assertThat(scheduler.scheduleIfDeferred(request(later)).getStatus()).isEqualTo("SCHEDULED");
+        assertThat(scheduler.scheduleIfDeferred(request(later)).getStatus()).isEqualTo("SCHEDULED");
+        assertThat(scheduler.scheduleIfDeferred(request(later)).isSuccess()).isFalse();
+        assertThat(scheduler.getPendingCount()).isEqualTo(2L);
+        assertThat(store.entries).hasSize(2);
+    }
+
+    @Test
+    void loadsStoredEntriesBeforeAcceptingNewOnes() {
+        store.save("0b6f3c2e-4f0a-4d43-9a51-7f1d5f0d2a11", Instant.now().plusSeconds(3600),
+                request(Instant.now().plusSeconds(3600)));
+        scheduler = scheduler();
+        assertThat(scheduler.getPendingCount()).isEqualTo(1L);
+
+        scheduler.scheduleIfDeferred(request(Instant.now().plusSeconds(3600)));
+        assertThat(scheduler.getPendingCount()).isEqualTo(2L);
+        assertThat(store.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void backedUpChannelDoesNotHoldOthers() {
+        properties.getDispatch().getDefaults().setConcurrency(1);
+        properties.getScheduler().setMaxDispatchQueueDepth(1);
+        scheduler = scheduler(provider("EMAIL"), provider("SMS"));
+        List<String> released = new CopyOnWriteArrayList<>();
+        scheduler.setReleaseHandler(request -> {
+            released.add(request.getType());
+            return CompletableFuture.completedFuture(NotificationResponse.success("id"));
+        });
+
+        // One email running and two queued behind it
+        CountDownLatch stuck = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatch(request("EMAIL", null), () -> {
+                try {
+                    stuck.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return NotificationResponse.success("email");
+            });
+        }
+        await(() -> dispatcher.getQueueDepth("EMAIL") >= 1);
+
+        Instant soon = Instant.now().plusMillis(30);
+        scheduler.scheduleIfDeferred(request("EMAIL", soon));
+        scheduler.scheduleIfDeferred(request("SMS", soon));
+
+        await(() -> released.contains("SMS"));
+        sleep(100);
+        assertThat(released.contains("EMAIL")).isFalse();
+        assertThat(scheduler.getPendingCount()).isEqualTo(1L);
+
+        stuck.countDown();
+        await(() -> released.contains("EMAIL"));
+    }
+
+    private NotificationScheduler scheduler(NotificationProvider... providers) {
+        properties.getScheduler().setTickDuration(Duration.ofMillis(10));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        dispatcher = new NotificationDispatcher(properties, List.of(providers),
+                beans.getBeanProvider(MeterRegistry.class));
+        beans.addBean("store", store);
+        return new NotificationScheduler(properties, dispatcher, beans.getBeanProvider(ScheduledNotificationStore.class));
+    }
+
+    private static NotificationProvider provider(String type) {
+        return new NotificationProvider() {
+            @Override
+            public String getType() {
+                return type;
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public NotificationResponse send(NotificationRequest request) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static NotificationRequest request(Instant sendAt) {
+        return request("SMS", sendAt);
+    }
+
+    private static NotificationRequest request(String type, Instant sendAt) {
+        return NotificationRequest.builder()
+                .type(type)
+                .recipient("919876500001")
+                .message("Your appointment is in one hour")
+                .sendAt(sendAt)
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class InMemoryStore implements ScheduledNotificationStore {
+
+        final Map<String, NotificationRequest> entries = new ConcurrentHashMap<>();
+        final Map<String, Instant> dueTimes = new ConcurrentHashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public void save(String id, Instant dueAt, NotificationRequest request) {
+            entries.put(id, request);
+            dueTimes.put(id, dueAt);
+        }
+
+        @Override
+        public void delete(Collection<String> ids) {
+            ids.forEach(entries::remove);
+        }
+
+        @Override
+        public void loadAll(Loader loader) {
+            loads.incrementAndGet();
+            entries.forEach((id, request) -> loader.accept(id, dueTimes.get(id), request));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.shub.projects.notifications.core;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationServiceImplTest {
+
+    private final NotificationProperties properties = new NotificationProperties();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private NotificationDispatcher dispatcher;
+    private NotificationRetrier retrier;
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        properties.getRetry().setEnabled(true);
+        properties.getRetry().setTickDuration(Duration.ofMillis(10));
+        properties.getRetry().getDefaults().setInitialBackoff(Duration.ofMillis(10));
+        properties.getRetry().getDefaults().setMinRetriesPerSecond(10);
+
+        NotificationProvider provider = new FlakyProvider();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        dispatcher = new NotificationDispatcher(properties, List.of(provider), beans.getBeanProvider(MeterRegistry.class));
+        retrier = new NotificationRetrier(properties);
+        service = new NotificationServiceImpl(List.of(provider), dispatcher, properties,
+                beans.getBeanProvider(NotificationListener.class),
+                new IdempotencyGuard(properties, beans.getBeanProvider(CacheManager.class)), retrier,
+                beans.getBeanProvider(NotificationScheduler.class),
+                new NotificationMetrics(beans.getBeanProvider(MeterRegistry.class), List.of(provider)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        retrier.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void synchronousSendRetriesTransientFailures() {
+        NotificationResponse response = service.send(NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your OTP is 482913")
+                .build());
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    /**
+     * Refuses the connection twice, then accepts
+     */
+    private class FlakyProvider implements NotificationProvider {
+
+        @Override
+        public String getType() {
+            return "SMS";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public NotificationResponse send(NotificationRequest request) {
+            if (attempts.incrementAndGet() < 3) {
+                return NotificationResponse.failure(ProviderErrors.CONNECT_FAILED, "Connection refused");
+            }
+            return NotificationResponse.success("sms-" + attempts.get());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.shub.projects.notifications.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationStreamerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void answersEveryLineEvenWhenOneIsNotAnObject() throws IOException {
+        NotificationStreamer streamer = new NotificationStreamer(new AcceptingService(), objectMapper,
+                new StaticListableBeanFactory().getBeanProvider(Validator.class), new NotificationProperties());
+
+        String request = objectMapper.writeValueAsString(NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your order has shipped")
+                .build());
+        String input = request + "\nnull\n{not json\n" + request + "\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long count = streamer.stream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(4L);
+        assertThat(lines.length).isEqualTo(4);
+        assertThat(response(lines[0]).isSuccess()).isTrue();
+        assertThat(response(lines[1]).isSuccess()).isFalse();
+        assertThat(response(lines[2]).isSuccess()).isFalse();
+        assertThat(response(lines[3]).isSuccess()).isTrue();
+    }
+
+    private NotificationResponse response(String line) throws IOException {
+        return objectMapper.readValue(line, NotificationResponse.class);
+    }
+
+    private static class AcceptingService implements NotificationService {
+
+        @Override
+        public NotificationResponse send(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<NotificationResponse> sendAsync(NotificationRequest request) {
+            return CompletableFuture.completedFuture(NotificationResponse.success("sms-" + request.getRecipient()));
+        }
+
+        @Override
+        public CompletableFuture<List<NotificationResponse>> sendBulk(List<NotificationRequest> requests) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Flux<NotificationResponse> sendBulkReactive(List<NotificationRequest> requests) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.shub.projects.notifications.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.core.NotificationService;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.NotificationProvider;
+import org.apache.qpid.server.SystemLauncher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * NotificationQueueConsumer against an embedded Qpid broker speaking AMQP 0-9-1
+ */
+class NotificationQueueConsumerTest {
+
+    private static final String QUEUE = "notification.requests.sms";
+    private static final String REPLIES = "test.replies";
+
+    private static SystemLauncher broker;
+    private static int port;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger sendBulkCalls = new AtomicInteger();
+    private volatile Function<List<NotificationRequest>, CompletableFuture<List<NotificationResponse>>> sendBulk;
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitTemplate rabbitTemplate;
+    private RabbitAdmin rabbitAdmin;
+    private NotificationQueueConsumer consumer;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation",
+                NotificationQueueConsumerTest.class.getResource("/qpid-broker-config.json").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", Collections.singletonMap("qpid.amqp_port", String.valueOf(port)));
+        broker = new SystemLauncher();
+        broker.startup(attributes);
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new CachingConnectionFactory("localhost", port);
+        connectionFactory.setUsername("guest");
+        connectionFactory.setPassword("guest");
+        rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitAdmin = new RabbitAdmin(connectionFactory);
+        rabbitAdmin.declareQueue(new Queue(REPLIES, false));
+
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRabbitmq().getIngestion().setEnabled(true);
+        properties.getRabbitmq().getIngestion().setConcurrency(1);
+        properties.getRabbitmq().getIngestion().setMaxConcurrency(1);
+        consumer = new NotificationQueueConsumer(new StubService(),
+                Collections.singletonList(new StubProvider()), properties, connectionFactory, rabbitTemplate,
+                rabbitAdmin, objectMapper, new StaticListableBeanFactory().getBeanProvider(Validator.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (consumer != null) {
+            consumer.stop();
+        }
+        rabbitAdmin.deleteQueue(QUEUE);
+        rabbitAdmin.deleteQueue(REPLIES);
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void failsUnreadableMessagesAloneAndAcknowledgesTheBatch() throws IOException {
+        sendBulk = requests -> CompletableFuture.completedFuture(requests.stream()
+                .map(request -> NotificationResponse.success("sms-" + request.getRecipient()))
+                .collect(Collectors.toList()));
+
+        publish("valid", objectMapper.writeValueAsString(request()));
+        publish("null", "null");
+        publish("broken", "{not json");
+        consumer.start();
+
+        Map<String, NotificationResponse> results = receiveResults(3);
+        assertThat(results.get("valid").isSuccess()).isTrue();
+        assertThat(results.get("null").isSuccess()).isFalse();
+        assertThat(results.get("broken").isSuccess()).isFalse();
+        assertThat(sendBulkCalls.get()).isEqualTo(1);
+
+        consumer.stop();
+        assertThat(rabbitAdmin.getQueueInfo(QUEUE).getMessageCount()).isZero();
+    }
+
+    @Test
+    void acknowledgesBatchWhenSendingThrows() throws IOException {
+        sendBulk = requests -> {
+            throw new IllegalStateException("dispatcher closed");
+        };
+
+        publish("first", objectMapper.writeValueAsString(request()));
+        publish("second", objectMapper.writeValueAsString(request()));
+        consumer.start();
+
+        Map<String, NotificationResponse> results = receiveResults(2);
+        assertThat(results.get("first").isSuccess()).isFalse();
+        assertThat(results.get("second").isSuccess()).isFalse();
+
+        consumer.stop();
+        assertThat(sendBulkCalls.get()).isEqualTo(1);
+        assertThat(rabbitAdmin.getQueueInfo(QUEUE).getMessageCount()).isZero();
+    }
+
+    private void publish(String correlationId, String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setCorrelationId(correlationId);
+        properties.setReplyTo(REPLIES);
+        rabbitTemplate.send("", QUEUE, new Message(body.getBytes(StandardCharsets.UTF_8), properties));
+    }
+
+    private Map<String, NotificationResponse> receiveResults(int count) throws IOException {
+        Map<String, NotificationResponse> results = new HashMap<>();
+        while (results.size() < count) {
+            Message message = rabbitTemplate.receive(REPLIES, 5000);
+            if (message == null) {
+                throw new AssertionError("Only " + results.size() + " of " + count + " results received");
+            }
+            results.put(message.getMessageProperties().getCorrelationId(),
+                    objectMapper.readValue(message.getBody(), NotificationResponse.class));
+        }
+        return results;
+    }
+
+    private static NotificationRequest request() {
+        return NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your order has shipped")
+                .build();
+    }
+
+    private static class StubProvider implements NotificationProvider {
+
+        @Override
+        public String getType() {
+            return "SMS";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public NotificationResponse send(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class StubService implements NotificationService {
+
+        @Override
+        public NotificationResponse send(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<NotificationResponse> sendAsync(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<List<NotificationResponse>> sendBulk(List<NotificationRequest> requests) {
+            sendBulkCalls.incrementAndGet();
+            return sendBulk.apply(requests);
+        }
+
+        @Override
+        public Mono<NotificationResponse> sendReactive(NotificationRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Flux<NotificationResponse> sendBulkReactive(List<NotificationRequest> requests) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
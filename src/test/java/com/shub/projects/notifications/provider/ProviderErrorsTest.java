@@ -0,0 +1,38 @@
+package com.shub.projects.notifications.provider;
+
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderErrorsTest {
+
+    @Test
+    void separatesConnectFailuresFromFailuresAfterSending() {
+        assertThat(ProviderErrors.codeOf(request(new ConnectException("Connection refused"))))
+                .isEqualTo(ProviderErrors.CONNECT_FAILED);
+        assertThat(ProviderErrors.codeOf(request(new ConnectTimeoutException("connection timed out"))))
+                .isEqualTo(ProviderErrors.CONNECT_FAILED);
+        assertThat(ProviderErrors.codeOf(request(new IOException("Connection reset by peer"))))
+                .isEqualTo(ProviderErrors.IO_ERROR);
+        assertThat(ProviderErrors.codeOf(new TimeoutException("Did not observe any item")))
+                .isEqualTo(ProviderErrors.TIMEOUT);
+        assertThat(ProviderErrors.codeOf(request(ReadTimeoutException.INSTANCE)))
+                .isEqualTo(ProviderErrors.TIMEOUT);
+        assertThat(ProviderErrors.codeOf(new IllegalStateException("bug"))).isNull();
+    }
+
+    private static WebClientRequestException request(Throwable cause) {
+        return new WebClientRequestException(cause, HttpMethod.POST, URI.create("http://gateway/send"),
+                new HttpHeaders());
+    }
+}
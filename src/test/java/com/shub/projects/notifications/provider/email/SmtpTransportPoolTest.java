@@ -0,0 +1,224 @@
+package com.shub.projects.notifications.provider.email;
+
+import com.shub.projects.notifications.config.EmailConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SmtpTransportPool against an in-process stub SMTP server
+ */
+class SmtpTransportPoolTest {
+
+    private StubSmtpServer server;
+    private SmtpTransportPool pool;
+    private Session session;
+    private EmailConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubSmtpServer();
+        config = new EmailConfig();
+        config.setHost("localhost");
+        config.setPort(server.getPort());
+        config.getPool().setBorrowTimeout(Duration.ofSeconds(2));
+
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "false");
+        props.put("mail.smtp.connectiontimeout", "2000");
+        props.put("mail.smtp.timeout", "2000");
+        session = Session.getInstance(props);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void sendsManyMessagesOverOneConnection() throws MessagingException {
+        pool = new SmtpTransportPool(session, config, 2);
+
+        List<MessagingException> failures = pool.sendAll(messages(10));
+
+        assertThat(failures).containsOnlyNulls();
+        assertThat(server.getMessageCount()).isEqualTo(10);
+        assertThat(server.getConnectionCount()).isEqualTo(1);
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+        assertThat(pool.getActiveCount()).isZero();
+    }
+
+    @Test
+    void recyclesConnectionAfterMessageCap() throws MessagingException {
+        config.getPool().setMaxMessagesPerConnection(3);
+        pool = new SmtpTransportPool(session, config, 2);
+
+        List<MessagingException> failures = pool.sendAll(messages(7));
+
+        assertThat(failures).containsOnlyNulls();
+        assertThat(server.getMessageCount()).isEqualTo(7);
+        assertThat(server.getConnectionCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesOnFreshConnectionWhenReusedOneDied() throws MessagingException, IOException {
+        pool = new SmtpTransportPool(session, config, 2);
+        assertThat(pool.sendAll(messages(1))).containsOnlyNulls();
+
+        server.dropConnections();
+        List<MessagingException> failures = pool.sendAll(messages(1));
+
+        assertThat(failures).containsOnlyNulls();
+        assertThat(server.getMessageCount()).isEqualTo(2);
+        assertThat(server.getConnectionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void borrowTimesOutWhenPoolIsExhausted() throws MessagingException {
+        config.getPool().setBorrowTimeout(Duration.ofMillis(100));
+        pool = new SmtpTransportPool(session, config, 1);
+
+        SmtpTransportPool.Connection held = pool.borrow();
+        try {
+            List<MessagingException> failures = pool.sendAll(messages(1));
+            assertThat(failures.get(0)).hasMessageContaining("Timed out");
+        } finally {
+            pool.release(held);
+        }
+    }
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = new MimeMessage(session);
+            message.setFrom(new InternetAddress("sender@example.com"));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Message " + i);
+            message.setText("Body " + i);
+            message.saveChanges();
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Accepts every command and counts connections and delivered messages
+     */
+    private static final class StubSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+
+        StubSmtpServer() throws IOException {
+            executor.execute(this::acceptLoop);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConnectionCount() {
+            return connections.get();
+        }
+
+        int getMessageCount() {
+            return messages.get();
+        }
+
+        void dropConnections() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            sockets.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            dropConnections();
+            executor.shutdownNow();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    sockets.add(socket);
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                    PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                reply(out, "220 stub ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "DATA":
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // Discard the message body
+                            }
+                            messages.incrementAndGet();
+                            reply(out, "250 OK queued");
+                            break;
+                        case "QUIT":
+                            reply(out, "221 Bye");
+                            return;
+                        case "EHLO":
+                            reply(out, "250 stub");
+                            break;
+                        default:
+                            reply(out, "250 OK");
+                    }
+                }
+            } catch (SocketException e) {
+                // Dropped by the test
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
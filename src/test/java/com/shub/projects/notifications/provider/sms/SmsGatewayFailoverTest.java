@@ -0,0 +1,131 @@
+package com.shub.projects.notifications.provider.sms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shub.projects.notifications.config.SmsConfig;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gateway failover against stub gateways
+ */
+class SmsGatewayFailoverTest {
+
+    private static final String ACCEPTED = "{\"ErrorCode\":\"000\",\"ErrorMessage\":\"Success\",\"JobId\":\"20047\"}";
+
+    private HttpServer server;
+    private SmsProvider provider;
+    private final AtomicInteger primaryCalls = new AtomicInteger();
+    private final AtomicInteger backupCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow", exchange -> {
+            primaryCalls.incrementAndGet();
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, 200, ACCEPTED);
+        });
+        server.createContext("/down", exchange -> {
+            primaryCalls.incrementAndGet();
+            reply(exchange, 503, "");
+        });
+        server.createContext("/backup", exchange -> {
+            backupCalls.incrementAndGet();
+            reply(exchange, 200, ACCEPTED);
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.closeConnectionPool();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void timeoutIsReturnedWithoutFailingOver() {
+        provider = provider("/slow");
+
+        NotificationResponse response = provider.send(request());
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getErrorCode()).isEqualTo(ProviderErrors.TIMEOUT);
+        assertThat(primaryCalls.get()).isEqualTo(1);
+        assertThat(backupCalls.get()).isEqualTo(0);
+    }
+
+    @Test
+    void serverErrorFailsOverToNextGateway() {
+        provider = provider("/down");
+
+        NotificationResponse response = provider.send(request());
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(primaryCalls.get()).isEqualTo(1);
+        assertThat(backupCalls.get()).isEqualTo(1);
+    }
+
+    private SmsProvider provider(String primaryPath) {
+        String base = "http://localhost:" + server.getAddress().getPort();
+        SmsConfig config = new SmsConfig();
+        config.setEnabled(true);
+        config.setProvider("SMSGATEWAYHUB");
+        config.setUrl(base + primaryPath);
+        config.setParams("number={number}&text={text}");
+        config.getHttp().setResponseTimeout(Duration.ofMillis(200));
+
+        // Zero weight: never picked first, only used as the failover target
+        SmsConfig.Gateway backup = new SmsConfig.Gateway();
+        backup.setName("backup");
+        backup.setProvider("SMSGATEWAYHUB");
+        backup.setUrl(base + "/backup");
+        backup.setParams("number={number}&text={text}");
+        backup.setWeight(0);
+        config.setGateways(Collections.singletonList(backup));
+
+        return new SmsProvider(config, WebClient.builder(),
+                new StaticListableBeanFactory().getBeanProvider(ObjectMapper.class));
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static NotificationRequest request() {
+        return NotificationRequest.builder()
+                .type("SMS")
+                .recipient("919876500001")
+                .message("Your OTP is 482913")
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.shub.projects.notifications.provider.sms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shub.projects.notifications.config.SmsConfig;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merged multi-recipient SMS calls against a stub gateway
+ */
+class SmsProviderBatchTest {
+
+    private HttpServer server;
+    private SmsProvider provider;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile String reply;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/send", exchange -> {
+            calls.incrementAndGet();
+            byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        SmsConfig config = new SmsConfig();
+        config.setEnabled(true);
+        config.setProvider("SMSGATEWAYHUB");
+        config.setUrl("http://localhost:" + server.getAddress().getPort() + "/send");
+        config.setParams("number={number}&text={text}");
+        config.setMaxRecipientsPerRequest(10);
+        provider = new SmsProvider(config, WebClient.builder(),
+                new StaticListableBeanFactory().getBeanProvider(ObjectMapper.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.closeConnectionPool();
+        server.stop(0);
+    }
+
+    @Test
+    void attributesResultsPerRecipient() {
+        reply = "{\"ErrorCode\":\"000\",\"ErrorMessage\":\"Success\",\"JobId\":\"20047\",\"MessageData\":["
+                + "{\"Number\":\"919876500001\",\"MessageId\":\"m-1\"},"
+                + "{\"Number\":\"919876500003\",\"MessageId\":\"m-3\"}]}";
+
+        List<NotificationResponse> responses = provider.sendBatch(requests("+919876500001", "9876500002", "9876500003"));
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(responses.get(0).isSuccess()).isTrue();
+        assertThat(responses.get(0).getMessageId()).isEqualTo("m-1");
+        assertThat(responses.get(1).isSuccess()).isFalse();
+        assertThat(responses.get(1).getErrorCode()).isEqualTo(ProviderErrors.RECIPIENT_REJECTED);
+        assertThat(responses.get(2).isSuccess()).isTrue();
+        assertThat(responses.get(2).getMessageId()).isEqualTo("m-3");
+    }
+
+    @Test
+    void failsEveryRecipientWhenReplyHasNoPerRecipientResult() {
+        reply = "{\"ErrorCode\":\"000\",\"ErrorMessage\":\"Success\",\"JobId\":\"20047\"}";
+
+        List<NotificationResponse> responses = provider.sendBatch(requests("9876500001", "9876500002"));
+
+        assertThat(calls.get()).isEqualTo(1);
+        for (NotificationResponse response : responses) {
+            assertThat(response.isSuccess()).isFalse();
+            assertThat(response.getErrorCode()).isEqualTo(ProviderErrors.UNCONFIRMED);
+        }
+    }
+
+    @Test
+    void copiesGatewayRejectionToEveryRecipient() {
+        reply = "{\"ErrorCode\":\"006\",\"ErrorMessage\":\"error:Invalid template text\"}";
+
+        List<NotificationResponse> responses = provider.sendBatch(requests("9876500001", "9876500002"));
+
+        for (NotificationResponse response : responses) {
+            assertThat(response.isSuccess()).isFalse();
+            assertThat(response.getErrorCode()).isEqualTo(ProviderErrors.GATEWAY_PREFIX + "006");
+        }
+    }
+
+    private static List<NotificationRequest> requests(String... recipients) {
+        return Arrays.stream(recipients)
+                .map(recipient -> NotificationRequest.builder()
+                        .type("SMS")
+                        .recipient(recipient)
+                        .message("Your order has shipped")
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,119 @@
+package com.shub.projects.notifications.provider.sms;
+
+import com.shub.projects.notifications.config.SmsConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ObjectUtils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precompiled SmsUrlTemplate vs the String.replace chain it replaced
+ *
+ * {@link #replaceChain} is the previous SmsProvider.buildSmsUrl: a fresh
+ * placeholder map per message and one replace pass per entry over both the URL
+ * and the parameters. Setup checks that both produce the same URL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmsUrlTemplateBenchmark {
+
+    @Param({"MSG91", "GATEWAYHUB"})
+    public String gatewayStyle;
+
+    private SmsConfig.Gateway gateway;
+    private SmsUrlTemplate template;
+    private String recipient;
+    private String encodedMessage;
+
+    @Setup
+    public void setUp() {
+        gateway = new SmsConfig.Gateway();
+        gateway.setAuthKey("a1b2c3d4e5f6");
+        gateway.setSenderId("NOTIFY");
+        gateway.setDltEntityId("1201159100000000001");
+        gateway.setDltTemplateId("1207161000000000002");
+        if ("MSG91".equals(gatewayStyle)) {
+            gateway.setUrl("https://api.msg91.com/api/sendhttp.php");
+            gateway.setParams("authkey={authkey}&mobiles={mobiles}&message={message}&sender={sender}"
+                    + "&route={route}&DLT_TE_ID={dltTemplateId}");
+        } else {
+            gateway.setUrl("https://www.smsgatewayhub.com/api/mt/SendSMS");
+            gateway.setUser("account");
+            gateway.setPassword("secret");
+            gateway.setChannel("2");
+            gateway.setParams("APIKey={APIKey}&senderid={senderid}&channel={channel}&DCS=0&flashsms=0"
+                    + "&number={number}&text={text}&route={route}&EntityId={dltEntityId}"
+                    + "&dlttemplateid={dltTemplateId}");
+        }
+        template = SmsUrlTemplate.compile(gateway);
+        recipient = "919876543210";
+        encodedMessage = URLEncoder.encode("Your OTP is 482913. It expires in 10 minutes. Do not share it.",
+                StandardCharsets.UTF_8);
+
+        String compiled = compiled();
+        String replaced = replaceChain();
+        if (!compiled.equals(replaced)) {
+            throw new IllegalStateException("Renderers disagree:\n" + compiled + "\n" + replaced);
+        }
+    }
+
+    @Benchmark
+    public String compiled() {
+        return template.render(recipient, encodedMessage, gateway.getDltTemplateId());
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        String url = gateway.getUrl();
+        String params = gateway.getParams();
+
+        Map<String, String> paramMap = new HashMap<>();
+        paramMap.put("authkey", gateway.getAuthKey());
+        paramMap.put("mobiles", recipient);
+        paramMap.put("APIKey", gateway.getAuthKey());
+        paramMap.put("apikey", gateway.getAuthKey());
+        paramMap.put("user", gateway.getUser());
+        paramMap.put("password", gateway.getPassword());
+        paramMap.put("number", recipient);
+        paramMap.put("message", encodedMessage);
+        paramMap.put("text", encodedMessage);
+        paramMap.put("sender", gateway.getSenderId());
+        paramMap.put("senderid", gateway.getSenderId());
+        paramMap.put("route", gateway.getRoute());
+        paramMap.put("channel", gateway.getChannel());
+        paramMap.put("dltEntityId", gateway.getDltEntityId());
+        paramMap.put("dltTemplateId", gateway.getDltTemplateId());
+
+        String finalUrl = url;
+        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
+            if (!ObjectUtils.isEmpty(entry.getValue())) {
+                finalUrl = finalUrl.replace("{" + entry.getKey() + "}", entry.getValue());
+            }
+        }
+        String finalParams = params;
+        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
+            if (!ObjectUtils.isEmpty(entry.getValue())) {
+                finalParams = finalParams.replace("{" + entry.getKey() + "}", entry.getValue());
+            }
+        }
+        return finalUrl + (params.startsWith("?") ? "" : "?") + finalParams;
+    }
+}
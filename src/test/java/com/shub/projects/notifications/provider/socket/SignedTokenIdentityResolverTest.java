@@ -0,0 +1,67 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.corundumstudio.socketio.HandshakeData;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignedTokenIdentityResolverTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-07T09:00:00Z");
+
+    private final SignedTokenIdentityResolver resolver = new SignedTokenIdentityResolver("secret", "token",
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void resolvesUserFromQueryToken() {
+        String token = resolver.sign("user.42", NOW.plusSeconds(60));
+
+        assertThat(resolver.resolveUserId(handshake(Map.of("token", List.of(token)), null, null)))
+                .isEqualTo("user.42");
+    }
+
+    @Test
+    void resolvesUserFromAuthPayloadAndBearerHeader() {
+        String token = resolver.sign("42", NOW.plusSeconds(60));
+
+        assertThat(resolver.resolveUserId(handshake(Collections.emptyMap(), Map.of("token", token), null)))
+                .isEqualTo("42");
+        assertThat(resolver.resolveUserId(handshake(Collections.emptyMap(), null, "Bearer " + token)))
+                .isEqualTo("42");
+    }
+
+    @Test
+    void rejectsForgedExpiredAndMissingTokens() {
+        String token = resolver.sign("42", NOW.plusSeconds(60));
+        String forged = "43" + token.substring(2);
+        String otherKey = new SignedTokenIdentityResolver("other", "token").sign("42", NOW.plusSeconds(60));
+        String expired = resolver.sign("42", NOW);
+
+        assertThat(resolver.resolveUserId(handshake(Map.of("token", List.of(forged)), null, null))).isNull();
+        assertThat(resolver.resolveUserId(handshake(Map.of("token", List.of(otherKey)), null, null))).isNull();
+        assertThat(resolver.resolveUserId(handshake(Map.of("token", List.of(expired)), null, null))).isNull();
+        assertThat(resolver.resolveUserId(handshake(Map.of("userId", List.of("42")), null, null))).isNull();
+        assertThat(resolver.resolveUserId(handshake(Map.of("token", List.of("42")), null, null))).isNull();
+    }
+
+    private static HandshakeData handshake(Map<String, List<String>> params, Object auth, String authorization) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        if (authorization != null) {
+            headers.add("Authorization", authorization);
+        }
+        HandshakeData handshake = new HandshakeData(headers, params, new InetSocketAddress("localhost", 5000),
+                "/socket.io/", false);
+        handshake.setAuthToken(auth);
+        return handshake;
+    }
+}
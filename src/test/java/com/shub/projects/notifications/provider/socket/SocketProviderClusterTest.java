@@ -0,0 +1,147 @@
+package com.shub.projects.notifications.provider.socket;
+
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketIOServer;
+import com.shub.projects.notifications.config.SocketConfig;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * user:<id> delivery across nodes sharing a loopback bus, with no local sessions
+ */
+class SocketProviderClusterTest {
+
+    private final LoopbackSocketEventBus.Hub hub = new LoopbackSocketEventBus.Hub();
+    private final SocketConfig config = new SocketConfig();
+    private final List<SocketProvider> providers = new CopyOnWriteArrayList<>();
+    private final List<SocketOfflineBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        providers.forEach(SocketProvider::flushBatches);
+        buffers.forEach(SocketOfflineBuffer::shutdown);
+    }
+
+    @Test
+    void buffersOnPublisherWhenNoNodeDelivers() {
+        SocketOfflineBuffer bufferA = buffer();
+        SocketProvider nodeA = node(bufferA);
+        SocketOfflineBuffer bufferB = buffer();
+        node(bufferB);
+
+        NotificationResponse response = nodeA.send(request("user:42"));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getStatus()).isEqualTo("PUBLISHED");
+        await(() -> bufferA.getBufferedCount() == 1);
+        assertThat(bufferB.getBufferedCount()).isZero();
+    }
+
+    @Test
+    void doesNotBufferWhatAnotherNodeDelivered() {
+        SocketOfflineBuffer bufferA = buffer();
+        SocketProvider nodeA = node(bufferA);
+        List<SocketEvent> received = remoteNodeWithSessionFor("42");
+
+        nodeA.send(request("user:42"));
+
+        assertThat(received).hasSize(1);
+        sleep(300);
+        assertThat(bufferA.getBufferedCount()).isZero();
+    }
+
+    @Test
+    void forwardsBufferedEventsWhenUserConnectsElsewhere() {
+        SocketOfflineBuffer bufferA = buffer();
+        SocketProvider nodeA = node(bufferA);
+        LoopbackSocketEventBus remote = new LoopbackSocketEventBus(hub);
+
+        nodeA.send(request("user:42"));
+        await(() -> bufferA.getBufferedCount() == 1);
+
+        List<SocketEvent> received = new CopyOnWriteArrayList<>();
+        remote.subscribe(event -> {
+            if (event.getScope() == SocketEvent.Scope.USER) {
+                received.add(event);
+                remote.publish(new SocketEvent(SocketEvent.Scope.DELIVERED, null, null, null, event.getId()));
+            }
+        });
+        remote.publish(new SocketEvent(SocketEvent.Scope.CONNECTED, "42", null, null));
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).getEventName()).isEqualTo("notification");
+        assertThat(bufferA.getBufferedCount()).isZero();
+        sleep(300);
+        assertThat(bufferA.getBufferedCount()).isZero();
+    }
+
+    /**
+     * A node that reports delivery of every event for the user
+     */
+    private List<SocketEvent> remoteNodeWithSessionFor(String userId) {
+        LoopbackSocketEventBus remote = new LoopbackSocketEventBus(hub);
+        List<SocketEvent> received = new CopyOnWriteArrayList<>();
+        remote.subscribe(event -> {
+            if (event.getScope() == SocketEvent.Scope.USER && userId.equals(event.getTarget())) {
+                received.add(event);
+                remote.publish(new SocketEvent(SocketEvent.Scope.DELIVERED, null, null, null, event.getId()));
+            }
+        });
+        return received;
+    }
+
+    private SocketProvider node(SocketOfflineBuffer buffer) {
+        config.setEnabled(true);
+        config.getBus().setDeliveryTimeout(Duration.ofMillis(100));
+        SocketProvider provider = new SocketProvider(new SocketIOServer(new Configuration()), config,
+                new SocketSessionRegistry(), buffer, new LoopbackSocketEventBus(hub));
+        providers.add(provider);
+        return provider;
+    }
+
+    private SocketOfflineBuffer buffer() {
+        config.getOffline().setEnabled(true);
+        SocketOfflineBuffer buffer = new SocketOfflineBuffer(config,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private static NotificationRequest request(String recipient) {
+        return NotificationRequest.builder()
+                .type("SOCKET")
+                .recipient(recipient)
+                .message("Your order has shipped")
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.shub.projects.notifications.provider.whatsapp;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.provider.ProviderErrors;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * WhatsAppCloudApiProvider against a stub Graph API
+ */
+class WhatsAppCloudApiProviderTest {
+
+    private static final String SENT = "{\"messaging_product\":\"whatsapp\",\"messages\":[{\"id\":\"wamid.1\"}]}";
+
+    private HttpServer server;
+    private NotificationProperties properties;
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String reply = SENT;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            paths.add(exchange.getRequestURI().getPath());
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        properties = new NotificationProperties();
+        NotificationProperties.WhatsAppConfig whatsapp = properties.getWhatsapp();
+        whatsapp.setEnabled(true);
+        whatsapp.setGraphApiUrl("http://localhost:" + server.getAddress().getPort());
+        whatsapp.setPhoneNumberId("1001");
+        whatsapp.setAdditionalPhoneNumberIds(List.of("1002"));
+        whatsapp.setAccessToken("token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendsFromDefaultPhoneNumber() {
+        NotificationResponse response = provider().send(request(null));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getMessageId()).isEqualTo("wamid.1");
+        assertThat(paths).hasSize(1);
+        assertThat(paths.get(0)).isEqualTo("/v18.0/1001/messages");
+        assertThat(authorizations.get(0)).isEqualTo("Bearer token");
+    }
+
+    @Test
+    void sendsFromAdditionalPhoneNumber() {
+        NotificationResponse response = provider().send(request("1002"));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(paths.get(0)).isEqualTo("/v18.0/1002/messages");
+    }
+
+    @Test
+    void rejectsUnconfiguredPhoneNumber() {
+        NotificationResponse response = provider().send(request("9999"));
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getErrorMessage()).contains("9999");
+        assertThat(paths).isEmpty();
+    }
+
+    @Test
+    void mapsThrottlingErrorToRateLimited() {
+        status = 400;
+        reply = "{\"error\":{\"message\":\"Rate limit hit\",\"code\":130429}}";
+
+        NotificationResponse response = provider().send(request(null));
+
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getErrorCode()).isEqualTo(ProviderErrors.RATE_LIMITED);
+    }
+
+    @Test
+    void synchronousSendFailsFastWhenLimiterIsBehind() {
+        NotificationProperties.WhatsAppConfig.RateLimitConfig rateLimit = properties.getWhatsapp().getRateLimit();
+        rateLimit.setMessagesPerSecond(1);
+        rateLimit.setBurst(1);
+        rateLimit.setMaxBlockingDelay(Duration.ofMillis(100));
+        WhatsAppCloudApiProvider provider = provider();
+
+        assertThat(provider.send(request(null)).isSuccess()).isTrue();
+        long start = System.nanoTime();
+        NotificationResponse throttled = provider.send(request(null));
+
+        assertThat(throttled.isSuccess()).isFalse();
+        assertThat(throttled.getErrorCode()).isEqualTo(ProviderErrors.RATE_LIMITED);
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis()).isLessThan(500L);
+        assertThat(paths).hasSize(1);
+    }
+
+    private WhatsAppCloudApiProvider provider() {
+        return new WhatsAppCloudApiProvider(properties,
+                new StaticListableBeanFactory().getBeanProvider(CacheManager.class));
+    }
+
+    private static NotificationRequest request(String phoneNumberId) {
+        return NotificationRequest.builder()
+                .type("WHATSAPP")
+                .recipient("+91 98765 00001")
+                .message("Your order has shipped")
+                .metadata(phoneNumberId != null ? Map.of("phoneNumberId", phoneNumberId) : null)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.shub.projects.notifications.repository;
+
+import com.shub.projects.notifications.config.NotificationProperties;
+import com.shub.projects.notifications.dto.NotificationRequest;
+import com.shub.projects.notifications.dto.NotificationResponse;
+import com.shub.projects.notifications.dto.WhatsAppStatusUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * NotificationLogWriter against H2 in MySQL mode, using the shipped schema
+ */
+class NotificationLogWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private NotificationLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/notification-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        NotificationProperties properties = new NotificationProperties();
+        properties.getDatabase().getHistory().setFlushInterval(Duration.ofMillis(20));
+        writer = new NotificationLogWriter(jdbcTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void storesCreatedAtInUtc() {
+        LocalDateTime local = LocalDateTime.of(2026, 1, 7, 9, 0, 0);
+        writer.onNotificationSent(request(), response("wamid.1", local));
+
+        await(() -> writer.getWrittenCount() == 1);
+        LocalDateTime stored = jdbcTemplate.queryForObject(
+                "SELECT created_at FROM notification_log WHERE message_id = 'wamid.1'", LocalDateTime.class);
+        assertThat(stored).isEqualTo(
+                local.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime());
+    }
+
+    @Test
+    void updatesStatusOfWrittenRow() {
+        writer.onNotificationSent(request(), response("wamid.1", LocalDateTime.now()));
+        writer.onStatusUpdates(Collections.singletonList(status("wamid.1", "delivered")));
+
+        await(() -> "DELIVERED".equals(statusOf("wamid.1")));
+        assertThat(writer.getParkedStatusCount()).isZero();
+    }
+
+    @Test
+    void appliesStatusThatArrivesBeforeItsRow() {
+        writer.onStatusUpdates(Collections.singletonList(status("wamid.1", "delivered")));
+        await(() -> writer.getParkedStatusCount() == 1);
+
+        writer.onNotificationSent(request(), response("wamid.1", LocalDateTime.now()));
+
+        await(() -> writer.getWrittenCount() == 1);
+        assertThat(statusOf("wamid.1")).isEqualTo("DELIVERED");
+        assertThat(writer.getParkedStatusCount()).isZero();
+    }
+
+    private String statusOf(String messageId) {
+        return jdbcTemplate.query("SELECT status FROM notification_log WHERE message_id = ?",
+                resultSet -> resultSet.next() ? resultSet.getString(1) : null, messageId);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static NotificationRequest request() {
+        return NotificationRequest.builder()
+                .type("WHATSAPP")
+                .recipient("919876500001")
+                .message("Your order has shipped")
+                .build();
+    }
+
+    private static NotificationResponse response(String messageId, LocalDateTime timestamp) {
+        return NotificationResponse.builder()
+                .success(true)
+                .status("SENT")
+                .messageId(messageId)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static WhatsAppStatusUpdate status(String messageId, String status) {
+        return WhatsAppStatusUpdate.builder()
+                .messageId(messageId)
+                .status(status)
+                .build();
+    }
+}